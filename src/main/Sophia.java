@@ -1,14 +1,46 @@
 package main;
 
+import main.compilerDiagnostics.Diagnostics;
+import main.parsing.MappedCharStream;
+import main.parsing.ParserWarmup;
 import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class Sophia {
     public static void main(String[] args) throws IOException {
-        CharStream reader = CharStreams.fromFileName(args[0]);
         SophiaCompiler sophiaCompiler = new SophiaCompiler();
+        String fileName = null;
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("--metrics"))
+                sophiaCompiler.setPrintMetrics(true);
+            else if(args[i].equals("--warmup"))
+                sophiaCompiler.setWarmupCorpus(ParserWarmup.builtInCorpus());
+            else if(args[i].equals("--incremental"))
+                sophiaCompiler.setIncremental(true);
+            else if(args[i].equals("--ast-cache"))
+                sophiaCompiler.setAstCacheDirectory(".sophia-cache");
+            else if(args[i].equals("--ast-cache-dir"))
+                sophiaCompiler.setAstCacheDirectory(args[++i]);
+            else if(args[i].equals("--output-cache"))
+                sophiaCompiler.setOutputCacheDirectory(".sophia-cache/classes");
+            else if(args[i].equals("--output-cache-size"))
+                sophiaCompiler.setOutputCacheBytes(Long.parseLong(args[++i]) << 20);
+            else if(args[i].equals("--fused"))
+                sophiaCompiler.setFusedAnalysis(true);
+            else if(args[i].equals("--json-errors"))
+                sophiaCompiler.setDiagnosticsFormat(Diagnostics.Format.JSON);
+            else if(args[i].equals("--profile"))
+                sophiaCompiler.setProfile(true);
+            else if(args[i].equals("--unbuffered"))
+                sophiaCompiler.setUnbufferedParsing(true);
+            else if(args[i].equals("--warmup-corpus"))
+                sophiaCompiler.setWarmupCorpus(ParserWarmup.loadCorpus(Paths.get(args[++i])));
+            else
+                fileName = args[i];
+        }
+        CharStream reader = MappedCharStream.fromPath(Paths.get(fileName));
         sophiaCompiler.compile(reader);
     }
 }
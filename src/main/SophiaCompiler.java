@@ -1,55 +1,246 @@
 package main;
 
+import main.ast.nodes.Node;
 import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.types.TypeFactory;
+import main.compilerDiagnostics.Diagnostics;
+import main.compilerMetrics.CompilerMetrics;
+import main.incremental.AstCache;
+import main.incremental.IncrementalBuild;
+import main.incremental.OutputCache;
+import main.parsing.ParserWarmup;
+import main.parsing.ProgramParser;
 import main.visitor.codeGenerator.CodeGenerator;
 import main.visitor.nameAnalyzer.NameAnalyzer;
+import main.visitor.optimizer.ClassHierarchyAnalysis;
+import main.visitor.optimizer.ConstantFolder;
+import main.visitor.optimizer.DeadCodeEliminator;
+import main.visitor.optimizer.Inliner;
+import main.visitor.optimizer.LoopInvariantHoister;
+import main.visitor.typeChecker.FusedChecker;
 import main.visitor.typeChecker.TypeChecker;
 import main.visitor.utils.ASTTreePrinter;
-import main.visitor.utils.ErrorReporter;
 import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CommonTokenStream;
-import parsers.SophiaLexer;
-import parsers.SophiaParser;
+import org.antlr.v4.runtime.misc.Interval;
 
 import java.io.*;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
 
 public class SophiaCompiler {
+    //part of the key of everything cached between runs, change it whenever the generated code changes
+    public static final String VERSION = "phase4-9";
+    private final CompilerMetrics metrics = new CompilerMetrics();
+    private final Diagnostics diagnostics = new Diagnostics();
+    private Diagnostics.Format diagnosticsFormat = Diagnostics.Format.TEXT;
+    private boolean fusedAnalysis = false;
+    private boolean printMetrics = false;
+    private String warmupCorpus = null;
+    private boolean unbufferedParsing = false;
+    private boolean profile = false;
+    private boolean incremental = false;
+    private String astCacheDirectory = null;
+    private String outputCacheDirectory = null;
+    private long outputCacheBytes = 64L << 20;
+
+    public void setPrintMetrics(boolean printMetrics) {
+        this.printMetrics = printMetrics;
+    }
+
+    public void setDiagnosticsFormat(Diagnostics.Format format) {
+        this.diagnosticsFormat = format;
+        diagnostics.setFormat(format);
+    }
+
+    public void setFusedAnalysis(boolean fusedAnalysis) {
+        this.fusedAnalysis = fusedAnalysis;
+    }
+
+    public void setWarmupCorpus(String warmupCorpus) {
+        this.warmupCorpus = warmupCorpus;
+    }
+
+    public void setUnbufferedParsing(boolean unbufferedParsing) {
+        this.unbufferedParsing = unbufferedParsing;
+    }
+
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public void setAstCacheDirectory(String astCacheDirectory) {
+        this.astCacheDirectory = astCacheDirectory;
+    }
+
+    public void setOutputCacheDirectory(String outputCacheDirectory) {
+        this.outputCacheDirectory = outputCacheDirectory;
+    }
+
+    public void setOutputCacheBytes(long outputCacheBytes) {
+        this.outputCacheBytes = outputCacheBytes;
+    }
+
     public void compile(CharStream textStream) {
         System.out.println("\n--------------------------Compiling--------------------------");
-        SophiaLexer sophiaLexer = new SophiaLexer(textStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(sophiaLexer);
-        SophiaParser sophiaParser = new SophiaParser(tokenStream);
-        Program program = sophiaParser.sophia().sophiaProgram;
-        ErrorReporter errorReporter = new ErrorReporter();
+        Node.diagnostics = diagnostics;
+        TypeFactory.reset();
+        String sourceText = incremental || astCacheDirectory != null ?
+                textStream.getText(Interval.of(0, textStream.size() - 1)) : null;
+        AstCache astCache = astCacheDirectory == null ? null : new AstCache(astCacheDirectory, VERSION);
+        Program program = astCache == null ? null : astCache.load(sourceText);
+        boolean collected = program != null;
+        if(astCache != null)
+            metrics.increment(collected ? "astCache.hits" : "astCache.misses");
+        ProgramParser programParser = new ProgramParser(metrics);
+        if(program == null) {
+            if(warmupCorpus != null)
+                ParserWarmup.warmUp(warmupCorpus, metrics);
+            programParser.setUnbuffered(unbufferedParsing);
+            program = programParser.parse(textStream);
+        }
         NameAnalyzer nameAnalyzer = new NameAnalyzer(program);
-        nameAnalyzer.analyze();
-        int numberOfErrors = program.accept(errorReporter);
+        if(collected)
+            nameAnalyzer.linkCollected();
+        else {
+            nameAnalyzer.collect();
+            if(astCache != null && programParser.getNumberOfSyntaxErrors() == 0 && !diagnostics.hasErrors()) {
+                try {
+                    metrics.add("astCache.storedBytes", astCache.store(sourceText, program));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        ClassHierarchyAnalysis hierarchyAnalysis = new ClassHierarchyAnalysis(program, nameAnalyzer.getClassHierarchy());
+        //generated classes name their source file
+        String sourceFile = Paths.get(textStream.getSourceName()).getFileName().toString();
+        String buildOptions = VERSION + " " + sourceFile + (profile ? " profile" : "");
+        IncrementalBuild incrementalBuild = null;
+        Set<String> dirtyClasses = null;
+        if(incremental) {
+            incrementalBuild = new IncrementalBuild("output/", buildOptions);
+            dirtyClasses = incrementalBuild.findDirtyClasses(program, sourceText, hierarchyAnalysis);
+            metrics.add("incremental.classes", program.getClasses().size());
+            metrics.add("incremental.dirtyClasses", dirtyClasses == null ? program.getClasses().size() : dirtyClasses.size());
+        }
+        Diagnostics typeDiagnostics = diagnostics;
+        if(fusedAnalysis) {
+            typeDiagnostics = new Diagnostics();
+            typeDiagnostics.setFormat(diagnosticsFormat);
+            FusedChecker fusedChecker = new FusedChecker(nameAnalyzer.getClassHierarchy(), metrics, diagnostics, typeDiagnostics);
+            fusedChecker.setClassesToCheck(dirtyClasses);
+            program.accept(fusedChecker);
+        }
+        else
+            nameAnalyzer.check();
+        int numberOfErrors = diagnostics.flush(System.out);
         if(numberOfErrors > 0) {
             System.out.println("\n" + numberOfErrors + " errors detected");
             System.exit(1);
         }
 //        ASTTreePrinter astTreePrinter = new ASTTreePrinter();
 //        program.accept(astTreePrinter);
-        TypeChecker typeChecker = new TypeChecker(nameAnalyzer.getClassHierarchy());
-        program.accept(typeChecker);
-        numberOfErrors = program.accept(errorReporter);
+        if(!fusedAnalysis) {
+            TypeChecker typeChecker = new TypeChecker(nameAnalyzer.getClassHierarchy(), metrics);
+            typeChecker.setClassesToCheck(dirtyClasses);
+            program.accept(typeChecker);
+        }
+        numberOfErrors = typeDiagnostics.flush(System.out);
         if(numberOfErrors > 0) {
             System.out.println("\n" + numberOfErrors + " errors detected");
             System.exit(1);
         }
-        CodeGenerator codeGenerator = new CodeGenerator(nameAnalyzer.getClassHierarchy());
+        OutputCache outputCache = null;
+        if(outputCacheDirectory != null) {
+            outputCache = new OutputCache(outputCacheDirectory, outputCacheBytes);
+            try {
+                outputCache.computeKeys(program, buildOptions, hierarchyAnalysis);
+            } catch (IOException e) {
+                e.printStackTrace();
+                outputCache = null;
+            }
+        }
+        program.accept(new Inliner(nameAnalyzer.getClassHierarchy(), hierarchyAnalysis, metrics));
+        program.accept(new ConstantFolder(metrics));
+        program.accept(new DeadCodeEliminator(metrics));
+        program.accept(new LoopInvariantHoister(nameAnalyzer.getClassHierarchy(), hierarchyAnalysis, metrics));
+        CodeGenerator codeGenerator = new CodeGenerator(nameAnalyzer.getClassHierarchy(), metrics);
+        codeGenerator.setHierarchyAnalysis(hierarchyAnalysis);
+        codeGenerator.setProfile(profile);
+        codeGenerator.setSourceFile(sourceFile);
+        codeGenerator.setCleanOutputFolder(dirtyClasses == null);
+        Set<String> classesToGenerate = dirtyClasses;
+        Set<String> classesToCache = new HashSet<>();
+        if(outputCache != null) {
+            codeGenerator.prepareOutputFolder();
+            classesToGenerate = new HashSet<>();
+            for(ClassDeclaration classDeclaration : program.getClasses())
+                if(dirtyClasses == null || dirtyClasses.contains(classDeclaration.getClassName().getName()))
+                    classesToGenerate.add(classDeclaration.getClassName().getName());
+            classesToCache.addAll(classesToGenerate);
+            for(String utilityClass : CodeGenerator.UTILITY_CLASSES)
+                if(!new File("output/" + utilityClass + ".class").exists())
+                    classesToCache.add(utilityClass);
+            try {
+                Set<String> restored = outputCache.restore(classesToCache, "output/");
+                classesToGenerate.removeAll(restored);
+                classesToCache.removeAll(restored);
+                metrics.add("outputCache.hits", restored.size());
+                metrics.add("outputCache.misses", classesToCache.size());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        codeGenerator.setClassesToGenerate(classesToGenerate);
         program.accept(codeGenerator);
         System.out.println("Compilation successful");
-        runJasminFiles();
+        runJasminFiles(classesToGenerate);
+        if(outputCache != null) {
+            try {
+                outputCache.store(classesToCache, "output/");
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if(incrementalBuild != null) {
+            incrementalBuild.removeStaleOutputs();
+            try {
+                incrementalBuild.saveManifest();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if(printMetrics)
+            metrics.print();
     }
 
-    private void runJasminFiles() {
+    //assembles only the given classes and the utility classes that have no class file yet, null assembles all
+    private void runJasminFiles(Set<String> classesToAssemble) {
         try {
             System.out.println("\n-------------------Generating Class Files-------------------");
             File dir = new File("./output");
-            Process process = Runtime.getRuntime().exec(new String[]{"bash", "-c", "java -jar jasmin.jar *.j"}, null, dir);
-            printResults(process.getInputStream());
-            printResults(process.getErrorStream());
+            String jasminFiles = "*.j";
+            if(classesToAssemble != null) {
+                StringBuilder files = new StringBuilder();
+                for(String className : classesToAssemble)
+                    files.append(" ").append(className).append(".j");
+                for(String utilityClass : CodeGenerator.UTILITY_CLASSES)
+                    if(!new File(dir, utilityClass + ".class").exists())
+                        files.append(" ").append(utilityClass).append(".j");
+                jasminFiles = files.toString();
+            }
+            if(!jasminFiles.isEmpty()) {
+                Process process = Runtime.getRuntime().exec(new String[]{"bash", "-c", "java -jar jasmin.jar " + jasminFiles}, null, dir);
+                printResults(process.getInputStream());
+                printResults(process.getErrorStream());
+            }
+            Process process;
             System.out.println("\n---------------------------Output---------------------------");
             process = Runtime.getRuntime().exec("java Main", null, dir);
             printResults(process.getInputStream());
@@ -1,29 +1,25 @@
 package main.ast.nodes;
 
 import main.compileErrorException.CompileErrorException;
+import main.compilerDiagnostics.Diagnostics;
 import main.visitor.IVisitor;
 
-import java.util.ArrayList;
-
 public abstract class Node {
     private int line;
-    private ArrayList<CompileErrorException> errors = new ArrayList<>();
+    private boolean hasError = false;
     public static boolean isCatchErrorsActive = true;
-
-    public ArrayList<CompileErrorException> flushErrors() {
-        ArrayList<CompileErrorException> errors = this.errors;
-        this.errors = new ArrayList<>();
-        return errors;
-    }
+    //errors go straight to the sink of the current compilation, nodes only remember that they had one
+    public static Diagnostics diagnostics = new Diagnostics();
 
     public void addError(CompileErrorException e) {
         if(Node.isCatchErrorsActive) {
-            this.errors.add(e);
+            this.hasError = true;
+            Node.diagnostics.report(e);
         }
     }
 
     public boolean hasError() {
-        return this.errors.size() != 0;
+        return this.hasError;
     }
 
     public int getLine() {
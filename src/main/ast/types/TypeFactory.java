@@ -0,0 +1,150 @@
+package main.ast.types;
+
+import main.ast.nodes.expression.Identifier;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.ClassType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+
+import java.util.*;
+
+//hands out one shared instance per structurally different type, so canonical types can be compared with ==
+//the instances are shared between all their users and must not be modified
+public class TypeFactory {
+    private static final IntType intType = new IntType();
+    private static final BoolType boolType = new BoolType();
+    private static final StringType stringType = new StringType();
+    private static final NullType nullType = new NullType();
+    private static final NoType noType = new NoType();
+    private static final Map<String, ClassType> classTypes = new HashMap<>();
+    private static final Map<List<Object>, ListType> listTypes = new HashMap<>();
+    private static final Map<List<Object>, FptrType> fptrTypes = new HashMap<>();
+    private static final Map<Type, Type> canonicalTypes = new IdentityHashMap<>();
+
+    //forgets the types of the last compilation, the canonical map holds on to its whole ast otherwise
+    public static void reset() {
+        classTypes.clear();
+        listTypes.clear();
+        fptrTypes.clear();
+        canonicalTypes.clear();
+    }
+
+    public static IntType intType() {
+        return intType;
+    }
+
+    public static BoolType boolType() {
+        return boolType;
+    }
+
+    public static StringType stringType() {
+        return stringType;
+    }
+
+    public static NullType nullType() {
+        return nullType;
+    }
+
+    public static NoType noType() {
+        return noType;
+    }
+
+    public static ClassType classType(String className) {
+        ClassType classType = classTypes.get(className);
+        if(classType == null) {
+            classType = new ClassType(new Identifier(className));
+            classTypes.put(className, classType);
+            canonicalTypes.put(classType, classType);
+        }
+        return classType;
+    }
+
+    public static ListType listType(ArrayList<ListNameType> elementsTypes) {
+        //list(T, T) is the same type as list(2 # T), and list(x: T) the same as list(1 # x: T),
+        //so both are handed out as the repeated list
+        ArrayList<ListNameType> canonicalElements = new ArrayList<>();
+        boolean allSame = !elementsTypes.isEmpty();
+        for(ListNameType elementType : elementsTypes) {
+            Type type = canonical(elementType.getType());
+            String name = elementType.getName().getName();
+            canonicalElements.add(new ListNameType(new Identifier(name), type));
+            allSame = allSame && name.equals(canonicalElements.get(0).getName().getName()) && type == canonicalElements.get(0).getType();
+        }
+        if(allSame && (elementsTypes.size() == 1 || canonicalElements.get(0).getName().getName().equals("")))
+            return repeatedListType(elementsTypes.size(), canonicalElements.get(0));
+        List<Object> key = new ArrayList<>();
+        key.add(-1);
+        for(ListNameType elementType : canonicalElements) {
+            key.add(elementType.getName().getName());
+            key.add(elementType.getType());
+        }
+        ListType listType = listTypes.get(key);
+        if(listType == null) {
+            listType = new ListType(canonicalElements);
+            listTypes.put(key, listType);
+            canonicalTypes.put(listType, listType);
+        }
+        return listType;
+    }
+
+    public static ListType repeatedListType(int listSize, ListNameType elementType) {
+        Type type = canonical(elementType.getType());
+        String name = elementType.getName().getName();
+        List<Object> key = Arrays.asList(listSize, name, type);
+        ListType listType = listTypes.get(key);
+        if(listType == null) {
+            listType = new ListType(listSize, new ListNameType(new Identifier(name), type));
+            listTypes.put(key, listType);
+            canonicalTypes.put(listType, listType);
+        }
+        return listType;
+    }
+
+    public static FptrType fptrType(ArrayList<Type> argumentsTypes, Type returnType) {
+        ArrayList<Type> canonicalArguments = new ArrayList<>();
+        for(Type argumentType : argumentsTypes)
+            canonicalArguments.add(canonical(argumentType));
+        Type canonicalReturn = canonical(returnType);
+        List<Object> key = new ArrayList<>(canonicalArguments);
+        key.add(canonicalReturn);
+        FptrType fptrType = fptrTypes.get(key);
+        if(fptrType == null) {
+            fptrType = new FptrType(canonicalArguments, canonicalReturn);
+            fptrTypes.put(key, fptrType);
+            canonicalTypes.put(fptrType, fptrType);
+        }
+        return fptrType;
+    }
+
+    //the shared instance structurally equal to type, remembered per instance so each declared type is walked once
+    public static Type canonical(Type type) {
+        if(type instanceof IntType)
+            return intType;
+        if(type instanceof BoolType)
+            return boolType;
+        if(type instanceof StringType)
+            return stringType;
+        if(type instanceof NullType)
+            return nullType;
+        if(type instanceof NoType)
+            return noType;
+        Type canonicalType = canonicalTypes.get(type);
+        if(canonicalType != null)
+            return canonicalType;
+        if(type instanceof ClassType)
+            canonicalType = classType(((ClassType) type).getClassName().getName());
+        else if(type instanceof ListType && ((ListType) type).isRepeated())
+            canonicalType = repeatedListType(((ListType) type).getSize(), ((ListType) type).getElementType(0));
+        else if(type instanceof ListType)
+            canonicalType = listType(((ListType) type).getElementsTypes());
+        else if(type instanceof FptrType)
+            canonicalType = fptrType(((FptrType) type).getArgumentsTypes(), ((FptrType) type).getReturnType());
+        else
+            return type;
+        canonicalTypes.put(type, canonicalType);
+        return canonicalType;
+    }
+}
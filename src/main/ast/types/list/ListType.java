@@ -6,6 +6,9 @@ import java.util.ArrayList;
 
 public class ListType extends Type {
     private ArrayList<ListNameType> elementsTypes = new ArrayList<>();
+    //list(N # T) keeps T once with its count instead of N entries in elementsTypes
+    private ListNameType repeatedType;
+    private int repeatCount;
 
     public ListType() {
     }
@@ -15,20 +18,44 @@ public class ListType extends Type {
     }
 
     public ListType(int listSize, ListNameType listNameType) {
-        for(int i=0; i < listSize; i++) {
-            elementsTypes.add(listNameType);
-        }
+        this.repeatedType = listNameType;
+        this.repeatCount = listSize;
     }
 
+    public boolean isRepeated() {
+        return repeatedType != null;
+    }
+
+    public int getSize() {
+        if(this.isRepeated())
+            return repeatCount;
+        return elementsTypes.size();
+    }
+
+    public ListNameType getElementType(int index) {
+        if(this.isRepeated())
+            return repeatedType;
+        return elementsTypes.get(index);
+    }
+
+    //materializes all the entries of a repeated list, use getSize and getElementType when possible
     public ArrayList<ListNameType> getElementsTypes() {
-        return elementsTypes;
+        if(!this.isRepeated())
+            return elementsTypes;
+        ArrayList<ListNameType> repeated = new ArrayList<>();
+        for(int i = 0; i < repeatCount; i++)
+            repeated.add(repeatedType);
+        return repeated;
     }
 
     public void setElementsTypes(ArrayList<ListNameType> elementsTypes) {
         this.elementsTypes = elementsTypes;
+        this.repeatedType = null;
     }
 
     public void addElementType(ListNameType listNameType) {
+        if(this.isRepeated())
+            this.setElementsTypes(this.getElementsTypes());
         this.elementsTypes.add(listNameType);
     }
 
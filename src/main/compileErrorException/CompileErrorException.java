@@ -9,6 +9,14 @@ public class CompileErrorException extends Exception {
         this.message = message;
     }
 
+    public int getLine() {
+        return line;
+    }
+
+    public String getDescription() {
+        return message;
+    }
+
     public String getMessage() {
         return "Line:" + this.line + ":" + this.message;
     }
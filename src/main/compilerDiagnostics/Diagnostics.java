@@ -0,0 +1,89 @@
+package main.compilerDiagnostics;
+
+import main.compileErrorException.CompileErrorException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+//collects the errors of a compilation as they are found and prints them all at once, sorted by line
+public class Diagnostics {
+    public enum Format {
+        TEXT, JSON
+    }
+
+    private final Queue<CompileErrorException> reported = new ConcurrentLinkedQueue<>();
+    private Format format = Format.TEXT;
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public void report(CompileErrorException error) {
+        reported.add(error);
+    }
+
+    public boolean hasErrors() {
+        return !reported.isEmpty();
+    }
+
+    //errors of the same line keep the order they were reported in, an error reported twice is printed once
+    private List<CompileErrorException> drain() {
+        List<CompileErrorException> errors = new ArrayList<>();
+        for(CompileErrorException error; (error = reported.poll()) != null; )
+            errors.add(error);
+        errors.sort(Comparator.comparingInt(CompileErrorException::getLine));
+        Set<String> seen = new HashSet<>();
+        List<CompileErrorException> unique = new ArrayList<>();
+        for(CompileErrorException error : errors)
+            if(seen.add(error.getMessage()))
+                unique.add(error);
+        return unique;
+    }
+
+    //prints the errors reported since the last flush and returns how many there were
+    public int flush(PrintStream out) {
+        List<CompileErrorException> errors = this.drain();
+        if(errors.isEmpty())
+            return 0;
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+            if(format == Format.JSON)
+                writeJson(errors, writer);
+            else
+                for(CompileErrorException error : errors)
+                    writer.write(error.getMessage() + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return errors.size();
+    }
+
+    private static void writeJson(List<CompileErrorException> errors, Writer writer) throws IOException {
+        writer.write("[");
+        for(int i = 0; i < errors.size(); i++) {
+            writer.write(i == 0 ? "\n" : ",\n");
+            writer.write("  {\"line\": " + errors.get(i).getLine() + ", \"message\": \"" +
+                    escapeJson(errors.get(i).getDescription()) + "\"}");
+        }
+        writer.write("\n]\n");
+    }
+
+    private static String escapeJson(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for(char c : text.toCharArray()) {
+            if(c == '"' || c == '\\')
+                escaped.append('\\').append(c);
+            else if(c < 0x20)
+                escaped.append(String.format("\\u%04x", (int) c));
+            else
+                escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package main.compilerMetrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CompilerMetrics {
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    public void increment(String name) {
+        this.add(name, 1);
+    }
+
+    public void add(String name, long value) {
+        counters.put(name, this.get(name) + value);
+    }
+
+    public long get(String name) {
+        Long value = counters.get(name);
+        return value == null ? 0 : value;
+    }
+
+    public void print() {
+        System.out.println("\n--------------------------Metrics--------------------------");
+        for(Map.Entry<String, Long> counter : counters.entrySet())
+            System.out.println(counter.getKey() + ": " + counter.getValue());
+    }
+}
@@ -0,0 +1,71 @@
+package main.incremental;
+
+import main.ast.nodes.Program;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+//parsed programs with their collected symbol tables, one file per source text and compiler version.
+//only programs without syntax or name collection errors are stored, so a hit never has errors to report
+public class AstCache {
+    private final Path directory;
+    private final String version;
+
+    public AstCache(String directory, String version) {
+        this.directory = Paths.get(directory);
+        this.version = version;
+    }
+
+    private Path entryPath(String sourceText) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(version.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            StringBuilder hex = new StringBuilder();
+            for(byte b : digest.digest(sourceText.getBytes(StandardCharsets.UTF_8)))
+                hex.append(String.format("%02x", b));
+            return directory.resolve(hex + ".ast");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //returns null on a miss, a hit also fills SymbolTable.root.
+    //an entry that can not be read is deleted, the program is parsed again and stored in its place
+    public Program load(String sourceText) {
+        Path path = this.entryPath(sourceText);
+        if(!Files.exists(path))
+            return null;
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Program program = new AstReader(buffer).read(version);
+            if(program != null)
+                return program;
+        } catch (IOException unreadable) { }
+        //the name of an entry includes the version, so one of another version is damaged too
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) { }
+        return null;
+    }
+
+    //returns the size of the entry, it is written next to its final name and moved there so readers never see half of it
+    public long store(String sourceText, Program program) throws IOException {
+        byte[] entry = new AstWriter().write(version, program);
+        Files.createDirectories(directory);
+        Path path = this.entryPath(sourceText);
+        Path partial = Files.createTempFile(directory, "entry", ".partial");
+        Files.write(partial, entry);
+        Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entry.length;
+    }
+}
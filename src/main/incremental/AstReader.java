@@ -0,0 +1,343 @@
+package main.incremental;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.NoType;
+import main.ast.types.NullType;
+import main.ast.types.Type;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.ClassType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemAlreadyExistsException;
+import main.symbolTable.items.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static main.incremental.AstWriter.*;
+
+//rebuilds what AstWriter wrote: fresh nodes and types like the grammar actions create them,
+//and the symbol tables like NameCollector fills them, with SymbolTable.root pointing at the result
+public class AstReader {
+    private final ByteBuffer in;
+    private final List<String> readStrings = new ArrayList<>();
+
+    public AstReader(ByteBuffer in) {
+        this.in = in;
+    }
+
+    //returns null when the entry was written by another compiler version.
+    //SymbolTable.root is only replaced once the whole entry has been read
+    public Program read(String version) throws IOException {
+        try {
+            if(in.getInt() != MAGIC || !this.readString().equals(version))
+                return null;
+            Program program = (Program) this.readNode();
+            SymbolTable root = this.readSymbolTables(program);
+            if(in.hasRemaining())
+                throw new IOException("trailing bytes after the symbol tables");
+            SymbolTable.push(root);
+            SymbolTable.root = SymbolTable.top;
+            return program;
+        } catch (RuntimeException | ItemAlreadyExistsException e) {
+            throw new IOException("corrupt ast cache entry", e);
+        }
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("varint too long");
+    }
+
+    //everything counted takes at least a byte, so a count past the end of the entry is corrupt
+    private int readLength() throws IOException {
+        int length = this.readVarint();
+        if(length < 0 || length > in.remaining())
+            throw new IOException("length " + length + " past the end of the entry");
+        return length;
+    }
+
+    private String readString() throws IOException {
+        int index = this.readVarint();
+        if(index > 0)
+            return readStrings.get(index - 1);
+        byte[] bytes = new byte[this.readLength()];
+        in.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        readStrings.add(value);
+        return value;
+    }
+
+    private boolean readFlag() {
+        return in.get() != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Node> ArrayList<T> readNodes() throws IOException {
+        int size = this.readLength();
+        ArrayList<T> nodes = new ArrayList<>(size);
+        for(int i = 0; i < size; i++)
+            nodes.add((T) this.readNode());
+        return nodes;
+    }
+
+    private Node readNode() throws IOException {
+        byte tag = in.get();
+        if(tag == NULL)
+            return null;
+        int line = this.readVarint();
+        Node node;
+        switch(tag) {
+            case PROGRAM:
+                node = new Program(this.readNodes());
+                break;
+            case CLASS: {
+                ClassDeclaration classDeclaration = new ClassDeclaration((Identifier) this.readNode());
+                classDeclaration.setParentClassName((Identifier) this.readNode());
+                classDeclaration.setFields(this.readNodes());
+                classDeclaration.setConstructor((ConstructorDeclaration) this.readNode());
+                classDeclaration.setMethods(this.readNodes());
+                node = classDeclaration;
+                break;
+            }
+            case CONSTRUCTOR:
+                node = this.readMethodParts(new ConstructorDeclaration((Identifier) this.readNode()));
+                break;
+            case METHOD: {
+                Type returnType = this.readType();
+                node = this.readMethodParts(new MethodDeclaration((Identifier) this.readNode(), returnType));
+                break;
+            }
+            case FIELD:
+                node = new FieldDeclaration((VarDeclaration) this.readNode());
+                break;
+            case VAR: {
+                Identifier varName = (Identifier) this.readNode();
+                node = new VarDeclaration(varName, this.readType());
+                break;
+            }
+            case ASSIGNMENT: {
+                Expression lValue = (Expression) this.readNode();
+                node = new AssignmentStmt(lValue, (Expression) this.readNode());
+                break;
+            }
+            case BLOCK:
+                node = new BlockStmt(this.readNodes());
+                break;
+            case CONDITIONAL: {
+                Expression condition = (Expression) this.readNode();
+                ConditionalStmt conditionalStmt = new ConditionalStmt(condition, (Statement) this.readNode());
+                conditionalStmt.setElseBody((Statement) this.readNode());
+                node = conditionalStmt;
+                break;
+            }
+            case METHOD_CALL_STMT:
+                node = new MethodCallStmt((MethodCall) this.readNode());
+                break;
+            case PRINT:
+                node = new PrintStmt((Expression) this.readNode());
+                break;
+            case RETURN:
+                node = new ReturnStmt((Expression) this.readNode());
+                break;
+            case BREAK:
+                node = new BreakStmt();
+                break;
+            case CONTINUE:
+                node = new ContinueStmt();
+                break;
+            case FOREACH: {
+                Identifier variable = (Identifier) this.readNode();
+                ForeachStmt foreachStmt = new ForeachStmt(variable, (Expression) this.readNode());
+                foreachStmt.setBody((Statement) this.readNode());
+                node = foreachStmt;
+                break;
+            }
+            case FOR: {
+                ForStmt forStmt = new ForStmt();
+                forStmt.setInitialize((AssignmentStmt) this.readNode());
+                forStmt.setCondition((Expression) this.readNode());
+                forStmt.setUpdate((AssignmentStmt) this.readNode());
+                forStmt.setBody((Statement) this.readNode());
+                node = forStmt;
+                break;
+            }
+            case BINARY: {
+                Expression firstOperand = (Expression) this.readNode();
+                Expression secondOperand = (Expression) this.readNode();
+                node = new BinaryExpression(firstOperand, secondOperand, BinaryOperator.values()[in.get()]);
+                break;
+            }
+            case UNARY: {
+                Expression operand = (Expression) this.readNode();
+                node = new UnaryExpression(operand, UnaryOperator.values()[in.get()]);
+                break;
+            }
+            case MEMBER_ACCESS: {
+                Expression instance = (Expression) this.readNode();
+                node = new ObjectOrListMemberAccess(instance, (Identifier) this.readNode());
+                break;
+            }
+            case IDENTIFIER:
+                node = new Identifier(this.readString());
+                break;
+            case LIST_ACCESS: {
+                Expression instance = (Expression) this.readNode();
+                node = new ListAccessByIndex(instance, (Expression) this.readNode());
+                break;
+            }
+            case METHOD_CALL: {
+                Expression instance = (Expression) this.readNode();
+                node = new MethodCall(instance, this.readNodes());
+                break;
+            }
+            case NEW: {
+                ClassType classType = (ClassType) this.readType();
+                node = new NewClassInstance(classType, this.readNodes());
+                break;
+            }
+            case THIS:
+                node = new ThisClass();
+                break;
+            case LIST_VALUE:
+                node = new ListValue(this.readNodes());
+                break;
+            case NULL_VALUE:
+                node = new NullValue();
+                break;
+            case INT_VALUE: {
+                int zigzag = this.readVarint();
+                node = new IntValue((zigzag >>> 1) ^ -(zigzag & 1));
+                break;
+            }
+            case BOOL_VALUE:
+                node = new BoolValue(this.readFlag());
+                break;
+            case STRING_VALUE:
+                node = new StringValue(this.readString());
+                break;
+            default:
+                throw new IOException("unknown node tag " + tag);
+        }
+        node.setLine(line);
+        return node;
+    }
+
+    private MethodDeclaration readMethodParts(MethodDeclaration methodDeclaration) throws IOException {
+        methodDeclaration.setArgs(this.readNodes());
+        methodDeclaration.setLocalVars(this.readNodes());
+        methodDeclaration.setBody(this.readNodes());
+        return methodDeclaration;
+    }
+
+    private Type readType() throws IOException {
+        byte tag = in.get();
+        switch(tag) {
+            case NULL:
+                return null;
+            case INT_TYPE:
+                return new IntType();
+            case BOOL_TYPE:
+                return new BoolType();
+            case STRING_TYPE:
+                return new StringType();
+            case NULL_TYPE:
+                return new NullType();
+            case NO_TYPE:
+                return new NoType();
+            case CLASS_TYPE:
+                return new ClassType((Identifier) this.readNode());
+            case LIST_TYPE: {
+                int size = this.readLength();
+                ArrayList<ListNameType> elementsTypes = new ArrayList<>(size);
+                for(int i = 0; i < size; i++)
+                    elementsTypes.add(this.readListNameType());
+                return new ListType(elementsTypes);
+            }
+            case REPEATED_LIST_TYPE: {
+                int size = this.readVarint();
+                return new ListType(size, this.readListNameType());
+            }
+            case FPTR_TYPE: {
+                int size = this.readLength();
+                ArrayList<Type> argumentsTypes = new ArrayList<>(size);
+                for(int i = 0; i < size; i++)
+                    argumentsTypes.add(this.readType());
+                return new FptrType(argumentsTypes, this.readType());
+            }
+            default:
+                throw new IOException("unknown type tag " + tag);
+        }
+    }
+
+    private ListNameType readListNameType() throws IOException {
+        Identifier name = (Identifier) this.readNode();
+        return new ListNameType(name, this.readType());
+    }
+
+    private SymbolTable readSymbolTables(Program program) throws ItemAlreadyExistsException {
+        SymbolTable root = new SymbolTable();
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            if(!this.readFlag())
+                continue;
+            ClassSymbolTableItem classItem = new ClassSymbolTableItem(classDeclaration);
+            classItem.setClassSymbolTable(new SymbolTable(root));
+            root.put(classItem);
+            SymbolTable classSymbolTable = classItem.getClassSymbolTable();
+            for(FieldDeclaration fieldDeclaration : classDeclaration.getFields())
+                if(this.readFlag())
+                    classSymbolTable.put(new FieldSymbolTableItem(fieldDeclaration));
+            if(classDeclaration.getConstructor() != null)
+                this.readMethodTable(classSymbolTable, classDeclaration.getConstructor());
+            for(MethodDeclaration methodDeclaration : classDeclaration.getMethods())
+                this.readMethodTable(classSymbolTable, methodDeclaration);
+        }
+        return root;
+    }
+
+    private void readMethodTable(SymbolTable classSymbolTable, MethodDeclaration methodDeclaration)
+            throws ItemAlreadyExistsException {
+        if(!this.readFlag())
+            return;
+        MethodSymbolTableItem methodItem = new MethodSymbolTableItem(methodDeclaration);
+        methodItem.setMethodSymbolTable(new SymbolTable(classSymbolTable));
+        classSymbolTable.put(methodItem);
+        ArrayList<VarDeclaration> varDeclarations = new ArrayList<>(methodDeclaration.getArgs());
+        varDeclarations.addAll(methodDeclaration.getLocalVars());
+        for(VarDeclaration varDeclaration : varDeclarations)
+            if(this.readFlag())
+                methodItem.getMethodSymbolTable().put(new LocalVariableSymbolTableItem(varDeclaration));
+    }
+}
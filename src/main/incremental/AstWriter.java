@@ -0,0 +1,477 @@
+package main.incremental;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.NoType;
+import main.ast.types.NullType;
+import main.ast.types.Type;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListNameType;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.ClassType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.*;
+import main.visitor.Visitor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+//writes a program and the symbol tables collected for it in the format AstReader reads.
+//every node is a tag byte, its line and its fields in constructor order, ints are varints
+//and a string is written once and then referred to by its index
+public class AstWriter extends Visitor<Void> {
+    static final int MAGIC = 0x534f5041;
+    static final byte NULL = 0;
+    static final byte PROGRAM = 1;
+    static final byte CLASS = 2;
+    static final byte CONSTRUCTOR = 3;
+    static final byte METHOD = 4;
+    static final byte FIELD = 5;
+    static final byte VAR = 6;
+    static final byte ASSIGNMENT = 7;
+    static final byte BLOCK = 8;
+    static final byte CONDITIONAL = 9;
+    static final byte METHOD_CALL_STMT = 10;
+    static final byte PRINT = 11;
+    static final byte RETURN = 12;
+    static final byte BREAK = 13;
+    static final byte CONTINUE = 14;
+    static final byte FOREACH = 15;
+    static final byte FOR = 16;
+    static final byte BINARY = 17;
+    static final byte UNARY = 18;
+    static final byte MEMBER_ACCESS = 19;
+    static final byte IDENTIFIER = 20;
+    static final byte LIST_ACCESS = 21;
+    static final byte METHOD_CALL = 22;
+    static final byte NEW = 23;
+    static final byte THIS = 24;
+    static final byte LIST_VALUE = 25;
+    static final byte NULL_VALUE = 26;
+    static final byte INT_VALUE = 27;
+    static final byte BOOL_VALUE = 28;
+    static final byte STRING_VALUE = 29;
+    static final byte INT_TYPE = 1;
+    static final byte BOOL_TYPE = 2;
+    static final byte STRING_TYPE = 3;
+    static final byte NULL_TYPE = 4;
+    static final byte NO_TYPE = 5;
+    static final byte CLASS_TYPE = 6;
+    static final byte LIST_TYPE = 7;
+    static final byte REPEATED_LIST_TYPE = 8;
+    static final byte FPTR_TYPE = 9;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final Map<String, Integer> writtenStrings = new HashMap<>();
+    private final boolean writeLines;
+
+    public AstWriter() {
+        this(true);
+    }
+
+    //without lines the output only serves to compare code, AstReader cannot read it back
+    public AstWriter(boolean writeLines) {
+        this.writeLines = writeLines;
+    }
+
+    public byte[] writeClass(ClassDeclaration classDeclaration) {
+        classDeclaration.accept(this);
+        return out.toByteArray();
+    }
+
+    public byte[] write(String version, Program program) {
+        this.writeInt(MAGIC);
+        this.writeString(version);
+        program.accept(this);
+        this.writeSymbolTables(program);
+        return out.toByteArray();
+    }
+
+    private void writeInt(int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private void writeVarint(int value) {
+        while((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private void writeString(String value) {
+        Integer index = writtenStrings.get(value);
+        if(index != null) {
+            this.writeVarint(index + 1);
+            return;
+        }
+        writtenStrings.put(value, writtenStrings.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeVarint(0);
+        this.writeVarint(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private void writeHeader(byte tag, Node node) {
+        out.write(tag);
+        if(writeLines)
+            this.writeVarint(node.getLine());
+    }
+
+    private void writeNode(Node node) {
+        if(node == null)
+            out.write(NULL);
+        else
+            node.accept(this);
+    }
+
+    private void writeNodes(ArrayList<? extends Node> nodes) {
+        this.writeVarint(nodes.size());
+        for(Node node : nodes)
+            this.writeNode(node);
+    }
+
+    private void writeType(Type type) {
+        if(type == null)
+            out.write(NULL);
+        else if(type instanceof IntType)
+            out.write(INT_TYPE);
+        else if(type instanceof BoolType)
+            out.write(BOOL_TYPE);
+        else if(type instanceof StringType)
+            out.write(STRING_TYPE);
+        else if(type instanceof NullType)
+            out.write(NULL_TYPE);
+        else if(type instanceof NoType)
+            out.write(NO_TYPE);
+        else if(type instanceof ClassType) {
+            out.write(CLASS_TYPE);
+            this.writeNode(((ClassType) type).getClassName());
+        }
+        else if(type instanceof ListType) {
+            ListType listType = (ListType) type;
+            out.write(listType.isRepeated() ? REPEATED_LIST_TYPE : LIST_TYPE);
+            this.writeVarint(listType.getSize());
+            int written = listType.isRepeated() ? 1 : listType.getSize();
+            for(int i = 0; i < written; i++) {
+                ListNameType listNameType = listType.getElementType(i);
+                this.writeNode(listNameType.getName());
+                this.writeType(listNameType.getType());
+            }
+        }
+        else if(type instanceof FptrType) {
+            out.write(FPTR_TYPE);
+            ArrayList<Type> argumentsTypes = ((FptrType) type).getArgumentsTypes();
+            this.writeVarint(argumentsTypes.size());
+            for(Type argumentType : argumentsTypes)
+                this.writeType(argumentType);
+            this.writeType(((FptrType) type).getReturnType());
+        }
+        else
+            throw new IllegalArgumentException("cannot write type " + type);
+    }
+
+    //one flag per declaration in NameCollector's order, telling whether it owns the item of its name
+    private void writeSymbolTables(Program program) {
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            ClassSymbolTableItem classItem = null;
+            try {
+                classItem = (ClassSymbolTableItem) SymbolTable.root.getItem(
+                        ClassSymbolTableItem.START_KEY + classDeclaration.getClassName().getName(), true);
+            } catch (ItemNotFoundException ignored) { }
+            this.writeFlag(classItem != null && classItem.getClassDeclaration() == classDeclaration);
+            if(classItem == null || classItem.getClassDeclaration() != classDeclaration)
+                continue;
+            SymbolTable classSymbolTable = classItem.getClassSymbolTable();
+            for(FieldDeclaration fieldDeclaration : classDeclaration.getFields()) {
+                SymbolTableItem item = this.findItem(classSymbolTable, new FieldSymbolTableItem(fieldDeclaration));
+                this.writeFlag(item != null && ((FieldSymbolTableItem) item).getType() == fieldDeclaration.getVarDeclaration().getType());
+            }
+            if(classDeclaration.getConstructor() != null)
+                this.writeMethodTable(classSymbolTable, classDeclaration.getConstructor());
+            for(MethodDeclaration methodDeclaration : classDeclaration.getMethods())
+                this.writeMethodTable(classSymbolTable, methodDeclaration);
+        }
+    }
+
+    private void writeMethodTable(SymbolTable classSymbolTable, MethodDeclaration methodDeclaration) {
+        SymbolTableItem item = this.findItem(classSymbolTable, new MethodSymbolTableItem(methodDeclaration));
+        boolean owned = item != null && ((MethodSymbolTableItem) item).getMethodDeclaration() == methodDeclaration;
+        this.writeFlag(owned);
+        if(!owned)
+            return;
+        SymbolTable methodSymbolTable = ((MethodSymbolTableItem) item).getMethodSymbolTable();
+        ArrayList<VarDeclaration> varDeclarations = new ArrayList<>(methodDeclaration.getArgs());
+        varDeclarations.addAll(methodDeclaration.getLocalVars());
+        for(VarDeclaration varDeclaration : varDeclarations) {
+            SymbolTableItem varItem = this.findItem(methodSymbolTable, new LocalVariableSymbolTableItem(varDeclaration));
+            this.writeFlag(varItem != null && ((LocalVariableSymbolTableItem) varItem).getType() == varDeclaration.getType());
+        }
+    }
+
+    //the keys of the different item kinds never collide, so looking up the enclosing tables too finds nothing else
+    private SymbolTableItem findItem(SymbolTable symbolTable, SymbolTableItem probe) {
+        try {
+            return symbolTable.getItem(probe.getKey(), true);
+        } catch (ItemNotFoundException notCollected) {
+            return null;
+        }
+    }
+
+    private void writeFlag(boolean flag) {
+        out.write(flag ? 1 : 0);
+    }
+
+    @Override
+    public Void visit(Program program) {
+        this.writeHeader(PROGRAM, program);
+        this.writeNodes(program.getClasses());
+        return null;
+    }
+
+    @Override
+    public Void visit(ClassDeclaration classDeclaration) {
+        this.writeHeader(CLASS, classDeclaration);
+        this.writeNode(classDeclaration.getClassName());
+        this.writeNode(classDeclaration.getParentClassName());
+        this.writeNodes(classDeclaration.getFields());
+        this.writeNode(classDeclaration.getConstructor());
+        this.writeNodes(classDeclaration.getMethods());
+        return null;
+    }
+
+    @Override
+    public Void visit(ConstructorDeclaration constructorDeclaration) {
+        this.writeHeader(CONSTRUCTOR, constructorDeclaration);
+        this.writeMethodParts(constructorDeclaration);
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodDeclaration methodDeclaration) {
+        this.writeHeader(METHOD, methodDeclaration);
+        this.writeType(methodDeclaration.getReturnType());
+        this.writeMethodParts(methodDeclaration);
+        return null;
+    }
+
+    private void writeMethodParts(MethodDeclaration methodDeclaration) {
+        this.writeNode(methodDeclaration.getMethodName());
+        this.writeNodes(methodDeclaration.getArgs());
+        this.writeNodes(methodDeclaration.getLocalVars());
+        this.writeNodes(methodDeclaration.getBody());
+    }
+
+    @Override
+    public Void visit(FieldDeclaration fieldDeclaration) {
+        this.writeHeader(FIELD, fieldDeclaration);
+        this.writeNode(fieldDeclaration.getVarDeclaration());
+        return null;
+    }
+
+    @Override
+    public Void visit(VarDeclaration varDeclaration) {
+        this.writeHeader(VAR, varDeclaration);
+        this.writeNode(varDeclaration.getVarName());
+        this.writeType(varDeclaration.getType());
+        return null;
+    }
+
+    @Override
+    public Void visit(AssignmentStmt assignmentStmt) {
+        this.writeHeader(ASSIGNMENT, assignmentStmt);
+        this.writeNode(assignmentStmt.getlValue());
+        this.writeNode(assignmentStmt.getrValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(BlockStmt blockStmt) {
+        this.writeHeader(BLOCK, blockStmt);
+        this.writeNodes(blockStmt.getStatements());
+        return null;
+    }
+
+    @Override
+    public Void visit(ConditionalStmt conditionalStmt) {
+        this.writeHeader(CONDITIONAL, conditionalStmt);
+        this.writeNode(conditionalStmt.getCondition());
+        this.writeNode(conditionalStmt.getThenBody());
+        this.writeNode(conditionalStmt.getElseBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCallStmt methodCallStmt) {
+        this.writeHeader(METHOD_CALL_STMT, methodCallStmt);
+        this.writeNode(methodCallStmt.getMethodCall());
+        return null;
+    }
+
+    @Override
+    public Void visit(PrintStmt print) {
+        this.writeHeader(PRINT, print);
+        this.writeNode(print.getArg());
+        return null;
+    }
+
+    @Override
+    public Void visit(ReturnStmt returnStmt) {
+        this.writeHeader(RETURN, returnStmt);
+        this.writeNode(returnStmt.getReturnedExpr());
+        return null;
+    }
+
+    @Override
+    public Void visit(BreakStmt breakStmt) {
+        this.writeHeader(BREAK, breakStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ContinueStmt continueStmt) {
+        this.writeHeader(CONTINUE, continueStmt);
+        return null;
+    }
+
+    @Override
+    public Void visit(ForeachStmt foreachStmt) {
+        this.writeHeader(FOREACH, foreachStmt);
+        this.writeNode(foreachStmt.getVariable());
+        this.writeNode(foreachStmt.getList());
+        this.writeNode(foreachStmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(ForStmt forStmt) {
+        this.writeHeader(FOR, forStmt);
+        this.writeNode(forStmt.getInitialize());
+        this.writeNode(forStmt.getCondition());
+        this.writeNode(forStmt.getUpdate());
+        this.writeNode(forStmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(BinaryExpression binaryExpression) {
+        this.writeHeader(BINARY, binaryExpression);
+        this.writeNode(binaryExpression.getFirstOperand());
+        this.writeNode(binaryExpression.getSecondOperand());
+        out.write(binaryExpression.getBinaryOperator().ordinal());
+        return null;
+    }
+
+    @Override
+    public Void visit(UnaryExpression unaryExpression) {
+        this.writeHeader(UNARY, unaryExpression);
+        this.writeNode(unaryExpression.getOperand());
+        out.write(unaryExpression.getOperator().ordinal());
+        return null;
+    }
+
+    @Override
+    public Void visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        this.writeHeader(MEMBER_ACCESS, objectOrListMemberAccess);
+        this.writeNode(objectOrListMemberAccess.getInstance());
+        this.writeNode(objectOrListMemberAccess.getMemberName());
+        return null;
+    }
+
+    @Override
+    public Void visit(Identifier identifier) {
+        this.writeHeader(IDENTIFIER, identifier);
+        this.writeString(identifier.getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(ListAccessByIndex listAccessByIndex) {
+        this.writeHeader(LIST_ACCESS, listAccessByIndex);
+        this.writeNode(listAccessByIndex.getInstance());
+        this.writeNode(listAccessByIndex.getIndex());
+        return null;
+    }
+
+    @Override
+    public Void visit(MethodCall methodCall) {
+        this.writeHeader(METHOD_CALL, methodCall);
+        this.writeNode(methodCall.getInstance());
+        this.writeNodes(methodCall.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visit(NewClassInstance newClassInstance) {
+        this.writeHeader(NEW, newClassInstance);
+        this.writeType(newClassInstance.getClassType());
+        this.writeNodes(newClassInstance.getArgs());
+        return null;
+    }
+
+    @Override
+    public Void visit(ThisClass thisClass) {
+        this.writeHeader(THIS, thisClass);
+        return null;
+    }
+
+    @Override
+    public Void visit(ListValue listValue) {
+        this.writeHeader(LIST_VALUE, listValue);
+        this.writeNodes(listValue.getElements());
+        return null;
+    }
+
+    @Override
+    public Void visit(NullValue nullValue) {
+        this.writeHeader(NULL_VALUE, nullValue);
+        return null;
+    }
+
+    @Override
+    public Void visit(IntValue intValue) {
+        this.writeHeader(INT_VALUE, intValue);
+        this.writeVarint((intValue.getConstant() << 1) ^ (intValue.getConstant() >> 31));
+        return null;
+    }
+
+    @Override
+    public Void visit(BoolValue boolValue) {
+        this.writeHeader(BOOL_VALUE, boolValue);
+        this.writeFlag(boolValue.getConstant());
+        return null;
+    }
+
+    @Override
+    public Void visit(StringValue stringValue) {
+        this.writeHeader(STRING_VALUE, stringValue);
+        this.writeString(stringValue.getConstant());
+        return null;
+    }
+}
@@ -0,0 +1,68 @@
+package main.incremental;
+
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.Expression;
+import main.ast.nodes.expression.NewClassInstance;
+import main.ast.types.Type;
+import main.ast.types.functionPointer.FptrType;
+import main.ast.types.list.ListType;
+import main.ast.types.single.ClassType;
+import main.visitor.optimizer.ExpressionRewriter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+//names of the classes one class refers to: its parent, the class types in its declarations and its new targets.
+//member accesses only reach classes through those declared types, so they are covered transitively
+public class ClassReferenceCollector extends ExpressionRewriter {
+    private Set<String> references = new HashSet<>();
+
+    public Set<String> collect(ClassDeclaration classDeclaration) {
+        references = new HashSet<>();
+        this.currentClass = classDeclaration;
+        if(classDeclaration.getParentClassName() != null)
+            references.add(classDeclaration.getParentClassName().getName());
+        for(FieldDeclaration fieldDeclaration : classDeclaration.getFields())
+            this.addTypeReferences(fieldDeclaration.getVarDeclaration().getType());
+        classDeclaration.accept(this);
+        references.remove(classDeclaration.getClassName().getName());
+        return references;
+    }
+
+    private void addTypeReferences(Type type) {
+        if(type instanceof ClassType)
+            references.add(((ClassType) type).getClassName().getName());
+        else if(type instanceof ListType) {
+            ListType listType = (ListType) type;
+            for(int i = 0; i < listType.getSize(); i++) {
+                this.addTypeReferences(listType.getElementType(i).getType());
+                if(listType.isRepeated())
+                    break;
+            }
+        }
+        else if(type instanceof FptrType) {
+            for(Type argumentType : ((FptrType) type).getArgumentsTypes())
+                this.addTypeReferences(argumentType);
+            this.addTypeReferences(((FptrType) type).getReturnType());
+        }
+    }
+
+    @Override
+    public Expression visit(MethodDeclaration methodDeclaration) {
+        this.addTypeReferences(methodDeclaration.getReturnType());
+        for(VarDeclaration varDeclaration : methodDeclaration.getArgs())
+            this.addTypeReferences(varDeclaration.getType());
+        for(VarDeclaration varDeclaration : methodDeclaration.getLocalVars())
+            this.addTypeReferences(varDeclaration.getType());
+        return super.visit(methodDeclaration);
+    }
+
+    @Override
+    public Expression visit(NewClassInstance newClassInstance) {
+        references.add(newClassInstance.getClassType().getClassName().getName());
+        return super.visit(newClassInstance);
+    }
+}
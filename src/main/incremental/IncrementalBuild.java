@@ -0,0 +1,136 @@
+package main.incremental;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.visitor.optimizer.ClassHierarchyAnalysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+//remembers the source hash and the referenced classes of every class of the last successful build in the output folder,
+//so the next build only checks and generates the classes that changed and the classes that depend on them
+public class IncrementalBuild {
+    private static final String MANIFEST_NAME = "build.manifest";
+    private final String outputPath;
+    private final String buildKey;
+    private final Map<String, String> previousHashes = new HashMap<>();
+    private final Map<String, Set<String>> previousReferences = new HashMap<>();
+    private final Map<String, String> hashes = new LinkedHashMap<>();
+    private final Map<String, Set<String>> references = new HashMap<>();
+    private boolean hasManifest = false;
+
+    //buildKey holds the compiler version and whatever options change the output, a different key means a full build
+    public IncrementalBuild(String outputPath, String buildKey) {
+        this.outputPath = outputPath;
+        this.buildKey = buildKey;
+        this.loadManifest();
+    }
+
+    private Path manifestPath() {
+        return Paths.get(outputPath, MANIFEST_NAME);
+    }
+
+    private void loadManifest() {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(this.manifestPath(), StandardCharsets.UTF_8);
+        } catch (IOException noManifest) {
+            return;
+        }
+        if(lines.isEmpty() || !lines.get(0).equals("build " + buildKey))
+            return;
+        for(String line : lines.subList(1, lines.size())) {
+            String[] parts = line.split(" ", -1);
+            if(parts.length != 3)
+                return;
+            previousHashes.put(parts[0], parts[1]);
+            previousReferences.put(parts[0], new HashSet<>(Arrays.asList(parts[2].split(","))));
+        }
+        hasManifest = true;
+    }
+
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for(byte b : digest)
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //a class is hashed with the source lines from its own start line to the start line of the next class
+    //and with what its code takes from its subclasses, and with its start line since its output names its lines
+    private void hashClasses(Program program, String sourceText, ClassHierarchyAnalysis hierarchyAnalysis) {
+        String[] lines = sourceText.split("\n", -1);
+        ArrayList<ClassDeclaration> classes = program.getClasses();
+        ClassReferenceCollector referenceCollector = new ClassReferenceCollector();
+        for(int i = 0; i < classes.size(); i++) {
+            int start = classes.get(i).getLine() - 1;
+            int end = i + 1 < classes.size() ? classes.get(i + 1).getLine() : lines.length;
+            String text = String.join("\n", Arrays.copyOfRange(lines, Math.max(start, 0), Math.max(end, start)));
+            String className = classes.get(i).getClassName().getName();
+            String facts = hierarchyAnalysis.factsOf(className) + "\nline " + (start + 1);
+            hashes.put(className, hash(text + "\n" + facts));
+            references.put(className, referenceCollector.collect(classes.get(i)));
+        }
+    }
+
+    private boolean hasOutputs(String className) {
+        return new File(outputPath + className + ".class").exists();
+    }
+
+    //returns the classes to check and generate again, or null when everything has to be built
+    public Set<String> findDirtyClasses(Program program, String sourceText, ClassHierarchyAnalysis hierarchyAnalysis) {
+        this.hashClasses(program, sourceText, hierarchyAnalysis);
+        if(!hasManifest)
+            return null;
+        Set<String> changed = new HashSet<>();
+        for(Map.Entry<String, String> classHash : hashes.entrySet())
+            if(!classHash.getValue().equals(previousHashes.get(classHash.getKey())) || !this.hasOutputs(classHash.getKey()))
+                changed.add(classHash.getKey());
+        for(String className : previousHashes.keySet())
+            if(!hashes.containsKey(className))
+                changed.add(className);
+        Map<String, Set<String>> dependents = new HashMap<>();
+        for(Map<String, Set<String>> edges : Arrays.asList(previousReferences, references))
+            for(Map.Entry<String, Set<String>> classReferences : edges.entrySet())
+                for(String referenced : classReferences.getValue())
+                    dependents.computeIfAbsent(referenced, k -> new HashSet<>()).add(classReferences.getKey());
+        Deque<String> toVisit = new ArrayDeque<>(changed);
+        Set<String> dirty = new HashSet<>(changed);
+        while(!toVisit.isEmpty())
+            for(String dependent : dependents.getOrDefault(toVisit.pop(), Collections.emptySet()))
+                if(dirty.add(dependent))
+                    toVisit.push(dependent);
+        dirty.retainAll(hashes.keySet());
+        return dirty;
+    }
+
+    //deletes the outputs of classes that were in the last build but are not in this one
+    public void removeStaleOutputs() {
+        for(String className : previousHashes.keySet())
+            if(!hashes.containsKey(className)) {
+                new File(outputPath + className + ".j").delete();
+                new File(outputPath + className + ".class").delete();
+            }
+    }
+
+    public void saveManifest() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("build " + buildKey);
+        for(Map.Entry<String, String> classHash : hashes.entrySet())
+            lines.add(classHash.getKey() + " " + classHash.getValue() + " " +
+                    String.join(",", new TreeSet<>(references.get(classHash.getKey()))));
+        Files.write(this.manifestPath(), lines, StandardCharsets.UTF_8);
+    }
+}
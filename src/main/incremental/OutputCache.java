@@ -0,0 +1,150 @@
+package main.incremental;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.visitor.codeGenerator.CodeGenerator;
+import main.visitor.optimizer.ClassHierarchyAnalysis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//class files stored under a key made of the class's ast with its lines, which the class file names, the asts of every class it reaches
+//through its references and what each of those takes from its subclasses, since calls into them may be inlined,
+//and the compiler options,
+//so equal keys always assemble to equal class files.
+//entries are hard linked into the output folder, their modification time is their last use and the least
+//recently used ones are deleted once the cache is over its size bound
+public class OutputCache {
+    private static final String UTILITY_CLASSES_PATH = "utilities/codeGenerationUtilityClasses/";
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, String> keys = new HashMap<>();
+
+    public OutputCache(String directory, long maxBytes) {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    private static String hash(byte[]... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for(byte[] part : parts)
+                digest.update(part);
+            StringBuilder hex = new StringBuilder();
+            for(byte b : digest.digest())
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //has to run before anything rewrites the ast, the utility classes are keyed by their jasmin source
+    public void computeKeys(Program program, String options, ClassHierarchyAnalysis hierarchyAnalysis) throws IOException {
+        Map<String, String> astHashes = new HashMap<>();
+        Map<String, Set<String>> references = new HashMap<>();
+        ClassReferenceCollector referenceCollector = new ClassReferenceCollector();
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            String className = classDeclaration.getClassName().getName();
+            astHashes.put(className, hash(new AstWriter(true).writeClass(classDeclaration)));
+            references.put(className, referenceCollector.collect(classDeclaration));
+        }
+        for(String className : astHashes.keySet()) {
+            Set<String> reached = new TreeSet<>();
+            Deque<String> toVisit = new ArrayDeque<>(Collections.singleton(className));
+            while(!toVisit.isEmpty()) {
+                String visiting = toVisit.pop();
+                if(reached.add(visiting))
+                    toVisit.addAll(references.getOrDefault(visiting, Collections.emptySet()));
+            }
+            StringBuilder key = new StringBuilder(options).append('\n').append(className).append('\n');
+            for(String reachedClass : reached)
+                key.append(reachedClass).append(' ').append(astHashes.get(reachedClass)).append(' ')
+                        .append(hierarchyAnalysis.factsOf(reachedClass)).append('\n');
+            keys.put(className, hash(key.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        for(String utilityClass : CodeGenerator.UTILITY_CLASSES)
+            keys.put(utilityClass, hash(options.getBytes(StandardCharsets.UTF_8),
+                    Files.readAllBytes(Paths.get(UTILITY_CLASSES_PATH + utilityClass + ".j"))));
+    }
+
+    private Path entryPath(String className) {
+        return directory.resolve(keys.get(className) + ".class");
+    }
+
+    //links the stored class files of the given classes into the output folder and returns the classes it found.
+    //the old output of every given class is removed first, it may be a link the assembler would write through
+    public Set<String> restore(Collection<String> classNames, String outputPath) throws IOException {
+        Set<String> restored = new HashSet<>();
+        for(String className : classNames) {
+            Path entry = this.entryPath(className);
+            Path output = Paths.get(outputPath, className + ".class");
+            Files.deleteIfExists(output);
+            if(!Files.exists(entry))
+                continue;
+            try {
+                Files.createLink(output, entry);
+            } catch (UnsupportedOperationException | IOException notLinkable) {
+                try {
+                    Files.copy(entry, output);
+                } catch (IOException evictedMeanwhile) {
+                    continue;
+                }
+            }
+            restored.add(className);
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException evictedMeanwhile) { }
+        }
+        return restored;
+    }
+
+    //copies the assembled class files of the given classes into the cache and then evicts down to the bound
+    public void store(Collection<String> classNames, String outputPath) throws IOException {
+        Files.createDirectories(directory);
+        for(String className : classNames) {
+            Path output = Paths.get(outputPath, className + ".class");
+            if(!Files.exists(output))
+                continue;
+            Path partial = Files.createTempFile(directory, "entry", ".partial");
+            Files.copy(output, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, this.entryPath(className), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        this.evict();
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries;
+        try(Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(path -> path.toString().endsWith(".class")).collect(Collectors.toList());
+        }
+        Map<Path, FileTime> lastUses = new HashMap<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        long totalBytes = 0;
+        for(Path entry : entries) {
+            //another compiler sharing the cache may be evicting at the same time
+            try {
+                FileTime lastUse = Files.getLastModifiedTime(entry);
+                long size = Files.size(entry);
+                lastUses.put(entry, lastUse);
+                sizes.put(entry, size);
+                totalBytes += size;
+            } catch (NoSuchFileException alreadyEvicted) { }
+        }
+        entries = new ArrayList<>(lastUses.keySet());
+        entries.sort(Comparator.comparing(lastUses::get));
+        for(Path entry : entries) {
+            if(totalBytes <= maxBytes)
+                break;
+            Files.deleteIfExists(entry);
+            totalBytes -= sizes.get(entry);
+        }
+    }
+}
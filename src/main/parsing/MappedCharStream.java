@@ -0,0 +1,104 @@
+package main.parsing;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//reads an ascii source straight from the memory mapped file instead of decoding it into an int per character
+public class MappedCharStream implements CharStream {
+    private final ByteBuffer bytes;
+    private final int size;
+    private final String name;
+    private int position = 0;
+
+    private MappedCharStream(ByteBuffer bytes, String name) {
+        this.bytes = bytes;
+        this.size = bytes.limit();
+        this.name = name;
+    }
+
+    //falls back to the usual utf-8 decoding when the file is not plain ascii or too large to map at once
+    public static CharStream fromPath(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE)
+                return CharStreams.fromPath(path, StandardCharsets.UTF_8);
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for(int i = 0; i < bytes.limit(); i++)
+                if(bytes.get(i) < 0)
+                    return CharStreams.fromPath(path, StandardCharsets.UTF_8);
+            return new MappedCharStream(bytes, path.toString());
+        }
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.min(interval.a, size);
+        int length = Math.min(interval.b - interval.a + 1, size - start);
+        if(length <= 0)
+            return "";
+        byte[] text = new byte[length];
+        ByteBuffer view = bytes.duplicate();
+        view.position(start);
+        view.get(text);
+        return new String(text, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void consume() {
+        if(position >= size)
+            throw new IllegalStateException("cannot consume EOF");
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if(i == 0)
+            return 0;
+        int offset = i > 0 ? position + i - 1 : position + i;
+        if(offset < 0 || offset >= size)
+            return IntStream.EOF;
+        return bytes.get(offset);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return this.getText(Interval.of(0, size - 1));
+    }
+}
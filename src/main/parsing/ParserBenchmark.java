@@ -0,0 +1,54 @@
+package main.parsing;
+
+import main.compilerMetrics.CompilerMetrics;
+import org.antlr.v4.runtime.CharStreams;
+
+//times full LL parsing against SLL first parsing on generated programs of 1k to 100k lines
+//usage: ParserBenchmark [rounds]
+public class ParserBenchmark {
+    private static final int[] LINE_COUNTS = {1000, 10000, 100000};
+
+    //a valid program of about lineCount lines made of small methods
+    private static String generateProgram(int lineCount) {
+        StringBuilder program = new StringBuilder();
+        program.append("class Main {\n  def Main() {\n  }\n}\n");
+        program.append("class Gen {\n  x: int;\n  l: list(3 # int);\n");
+        int lines = 7;
+        for(int methodNumber = 0; lines < lineCount; methodNumber++) {
+            program.append("  def int m").append(methodNumber).append("(a: int, b: bool) {\n");
+            program.append("    i: int;\n    s: string;\n");
+            program.append("    for(i = 0; i < a; i = i + 1) {\n");
+            program.append("      if(b && i == 2 || !(a > 3)) {\n");
+            program.append("        this.x = this.x + i * (a - 1) / 2;\n");
+            program.append("        continue;\n      }\n");
+            program.append("      else\n        print(this.l[1]);\n");
+            program.append("    }\n");
+            program.append("    foreach(i in this.l)\n      s = \"i\";\n");
+            program.append("    return this.x;\n  }\n");
+            lines += 16;
+        }
+        program.append("}\n");
+        return program.toString();
+    }
+
+    private static long timeParse(String program, boolean sllFirst) {
+        ProgramParser programParser = new ProgramParser(new CompilerMetrics());
+        programParser.setSllFirst(sllFirst);
+        long start = System.nanoTime();
+        programParser.parse(CharStreams.fromString(program));
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for(int lineCount : LINE_COUNTS) {
+            String program = generateProgram(lineCount);
+            long bestLL = Long.MAX_VALUE, bestSLL = Long.MAX_VALUE;
+            for(int round = 0; round < rounds; round++) {
+                bestLL = Math.min(bestLL, timeParse(program, false));
+                bestSLL = Math.min(bestSLL, timeParse(program, true));
+            }
+            System.out.println(lineCount + " lines: LL " + bestLL / 1000000 + " ms, SLL first " + bestSLL / 1000000 + " ms");
+        }
+    }
+}
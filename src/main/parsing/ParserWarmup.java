@@ -0,0 +1,88 @@
+package main.parsing;
+
+import main.compilerMetrics.CompilerMetrics;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import parsers.SophiaLexer;
+import parsers.SophiaParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//fills the static DFA caches of SophiaLexer and SophiaParser by parsing a corpus before the real input.
+//the antlr runtime cannot save its DFA, so the corpus is what gets kept between runs instead
+public class ParserWarmup {
+    //snippets of a corpus are separated by lines holding only this comment
+    public static final String SNIPPET_SEPARATOR = "//%%";
+    private static final String BUILT_IN_CORPUS = String.join("\n" + SNIPPET_SEPARATOR + "\n",
+            "class A extends B {\n" +
+            "    c: C;\n" +
+            "    t: list(C, int);\n" +
+            "    def A(a: int, b: string, c: bool) {\n" +
+            "        e: list(r: list(2 # string), func<int->void>);\n" +
+            "        f: func<void->int>;\n" +
+            "        h: func<list(A, int)->void>;\n" +
+            "        e.r[0] = \"hi\";\n" +
+            "        print(e[1] == null);\n" +
+            "        f = this.foo;\n" +
+            "        print(f());\n" +
+            "        this.c = new C();\n" +
+            "        this.c.c = ++this.e * 4;\n" +
+            "        h([this, 9]);\n" +
+            "        a = a-- + --a + (3 * ++this.e - --g[1]) % 4 + this.foo().c * -a;\n" +
+            "        print(!(a != 5) && b == \"s\" || a > 2 && a < 3);\n" +
+            "    }\n" +
+            "}",
+            "class B {\n" +
+            "    def int m(a: int, l: list(3 # int)) {\n" +
+            "        i: int;\n" +
+            "        for(i = 0; i < a; i = i + 1) {\n" +
+            "            if(i == 2)\n" +
+            "                continue;\n" +
+            "            else {\n" +
+            "                break;\n" +
+            "            }\n" +
+            "        }\n" +
+            "        for(; ; ) {\n" +
+            "            return;\n" +
+            "        }\n" +
+            "        foreach(i in l)\n" +
+            "            this.x[i] = [1, true, \"s\", [null]];\n" +
+            "        return this;\n" +
+            "    }\n" +
+            "}",
+            "class Main {\n" +
+            "    def Main() {\n" +
+            "        a: A;\n" +
+            "        a = new A(1, \"s\", false);\n" +
+            "    }\n" +
+            "}");
+
+    public static String builtInCorpus() {
+        return BUILT_IN_CORPUS;
+    }
+
+    //reads the corpus kept at path, writing the built in one there first when there is none yet
+    public static String loadCorpus(Path path) throws IOException {
+        if(!Files.exists(path))
+            Files.write(path, BUILT_IN_CORPUS.getBytes(StandardCharsets.UTF_8));
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    //syntax errors in the corpus are ignored, the DFA states reached before them are still kept
+    public static void warmUp(String corpus, CompilerMetrics metrics) {
+        for(String snippet : corpus.split("(?m)^" + SNIPPET_SEPARATOR + "$")) {
+            SophiaLexer sophiaLexer = new SophiaLexer(CharStreams.fromString(snippet));
+            sophiaLexer.removeErrorListeners();
+            SophiaParser sophiaParser = new SophiaParser(new CommonTokenStream(sophiaLexer));
+            sophiaParser.removeErrorListeners();
+            try {
+                sophiaParser.sophia();
+            } catch (RuntimeException ignored) {
+            }
+            metrics.increment("parser.warmupSnippets");
+        }
+    }
+}
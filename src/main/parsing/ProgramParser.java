@@ -0,0 +1,88 @@
+package main.parsing;
+
+import main.ast.nodes.Program;
+import main.compilerMetrics.CompilerMetrics;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ConsoleErrorListener;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import parsers.SophiaLexer;
+import parsers.SophiaParser;
+
+//the grammar actions build the ast, so no parse tree is kept next to it.
+//parses with the faster SLL prediction first and only reparses with full LL when SLL gives up,
+//so syntax errors are still reported by the full LL pass
+public class ProgramParser {
+    private final CompilerMetrics metrics;
+    private boolean sllFirst = true;
+    private boolean unbuffered = false;
+    private int syntaxErrors = 0;
+    private final BaseErrorListener syntaxErrorCounter = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                int charPositionInLine, String msg, RecognitionException e) {
+            syntaxErrors++;
+        }
+    };
+
+    public ProgramParser(CompilerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setSllFirst(boolean sllFirst) {
+        this.sllFirst = sllFirst;
+    }
+
+    //keeps only a sliding window of tokens, for inputs too large to hold all of them.
+    //the tokens cannot be rewound so there is no SLL attempt in this mode
+    public void setUnbuffered(boolean unbuffered) {
+        this.unbuffered = unbuffered;
+    }
+
+    //lexer and parser errors of the last parse, they are printed as they happen
+    public int getNumberOfSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    public Program parse(CharStream textStream) {
+        syntaxErrors = 0;
+        SophiaLexer sophiaLexer = new SophiaLexer(textStream);
+        sophiaLexer.addErrorListener(syntaxErrorCounter);
+        if(unbuffered) {
+            SophiaParser sophiaParser = new SophiaParser(new UnbufferedTokenStream<>(sophiaLexer));
+            sophiaParser.addErrorListener(syntaxErrorCounter);
+            sophiaParser.setBuildParseTree(false);
+            return sophiaParser.sophia().sophiaProgram;
+        }
+        CommonTokenStream tokenStream = new CommonTokenStream(sophiaLexer);
+        SophiaParser sophiaParser = new SophiaParser(tokenStream);
+        sophiaParser.addErrorListener(syntaxErrorCounter);
+        sophiaParser.setBuildParseTree(false);
+        if(sllFirst) {
+            sophiaParser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            sophiaParser.removeErrorListeners();
+            sophiaParser.setErrorHandler(new BailErrorStrategy());
+            try {
+                Program program = sophiaParser.sophia().sophiaProgram;
+                metrics.increment("parser.sllParses");
+                return program;
+            } catch (ParseCancellationException sllFailed) {
+                metrics.increment("parser.llFallbacks");
+                tokenStream.seek(0);
+                sophiaParser.reset();
+                sophiaParser.addErrorListener(ConsoleErrorListener.INSTANCE);
+                sophiaParser.addErrorListener(syntaxErrorCounter);
+                sophiaParser.setErrorHandler(new DefaultErrorStrategy());
+                sophiaParser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            }
+        }
+        return sophiaParser.sophia().sophiaProgram;
+    }
+}
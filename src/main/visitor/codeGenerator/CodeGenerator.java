@@ -1,5 +1,6 @@
 package main.visitor.codeGenerator;
 
+import main.ast.nodes.Node;
 import main.ast.nodes.Program;
 import main.ast.nodes.declaration.classDec.ClassDeclaration;
 import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
@@ -28,53 +29,96 @@ import main.ast.types.single.BoolType;
 import main.ast.types.single.ClassType;
 import main.ast.types.single.IntType;
 import main.ast.types.single.StringType;
+import main.compilerMetrics.CompilerMetrics;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.ClassSymbolTableItem;
 import main.symbolTable.items.FieldSymbolTableItem;
 import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
+import main.visitor.optimizer.ClassHierarchyAnalysis;
 import main.visitor.typeChecker.ExpressionTypeChecker;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.Stack;
 
 public class CodeGenerator extends Visitor<String> {
+    //copied from utilities/codeGenerationUtilityClasses into every output folder
+    public static final String[] UTILITY_CLASSES = {"List", "Fptr", "Printer", "Profiler"};
     ExpressionTypeChecker expressionTypeChecker;
     Graph<String> classHierarchy;
     private String outputPath;
     private FileWriter currentFile;
+    private ArrayList<String> currentCommands = new ArrayList<>();
+    private PeepholeOptimizer peepholeOptimizer;
     private ClassDeclaration currentClass;
     private MethodDeclaration currentMethod;
     private int lastTempValue;
     private String stack_size;
     private int labelNum = 0;
+    private Stack<String> breakLabels = new Stack<>();
+    private Stack<String> continueLabels = new Stack<>();
+    private Set<String> classesToGenerate = null;
+    private boolean cleanOutputFolder = true;
+    private ClassHierarchyAnalysis hierarchyAnalysis = null;
+    private boolean profile = false;
+    private ArrayList<MethodDeclaration> profiledMethods = new ArrayList<>();
+    private int profileStartSlot;
+    private String sourceFile = null;
+    private int lastLine;
 
-    public CodeGenerator(Graph<String> classHierarchy) {
+    public CodeGenerator(Graph<String> classHierarchy, CompilerMetrics metrics) {
         this.classHierarchy = classHierarchy;
-        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy);
-        this.prepareOutputFolder();
+        this.peepholeOptimizer = new PeepholeOptimizer(metrics);
+        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy, metrics);
         this.lastTempValue = 0;
         this.stack_size = "128";
     }
 
-    private void prepareOutputFolder() {
+    //only these classes are written, null generates all of them
+    public void setClassesToGenerate(Set<String> classesToGenerate) {
+        this.classesToGenerate = classesToGenerate;
+    }
+
+    //leaf classes and methods no subclass redefines are generated final, null generates nothing final
+    public void setHierarchyAnalysis(ClassHierarchyAnalysis hierarchyAnalysis) {
+        this.hierarchyAnalysis = hierarchyAnalysis;
+    }
+
+    //counts the calls and the time of every method and constructor of the program, Profiler prints them at exit
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    //named by the .source of every class, null names nothing
+    public void setSourceFile(String sourceFile) {
+        this.sourceFile = sourceFile;
+    }
+
+    //false keeps the outputs of the classes that are not generated again
+    public void setCleanOutputFolder(boolean cleanOutputFolder) {
+        this.cleanOutputFolder = cleanOutputFolder;
+    }
+
+    //runs at the start of the program unless the caller already ran it to put other outputs in the folder
+    public void prepareOutputFolder() {
         this.outputPath = "output/";
         String jasminPath = "utilities/jarFiles/jasmin.jar";
-        String listClassPath = "utilities/codeGenerationUtilityClasses/List.j";
-        String fptrClassPath = "utilities/codeGenerationUtilityClasses/Fptr.j";
+        String utilityClassesPath = "utilities/codeGenerationUtilityClasses/";
         try{
             File directory = new File(this.outputPath);
             File[] files = directory.listFiles();
-            if(files != null)
+            if(files != null && cleanOutputFolder)
                 for (File file : files)
                     file.delete();
             directory.mkdir();
         }
         catch(SecurityException e) { }
         copyFile(jasminPath, this.outputPath + "jasmin.jar");
-        copyFile(listClassPath, this.outputPath + "List.j");
-        copyFile(fptrClassPath, this.outputPath + "Fptr.j");
+        for(String utilityClass : UTILITY_CLASSES)
+            copyFile(utilityClassesPath + utilityClass + ".j", this.outputPath + utilityClass + ".j");
     }
 
     private void copyFile(String toBeCopied, String toBePasted) {
@@ -103,31 +147,44 @@ public class CodeGenerator extends Visitor<String> {
     }
 
     private void addCommand(String command) {
+        for(String line : command.split("\n"))
+            this.currentCommands.add(line);
+    }
+
+    private void writeCurrentFile() {
         try {
-            command = String.join("\n\t\t", command.split("\n"));
-            if(command.startsWith("Label_"))
-                this.currentFile.write("\t" + command + "\n");
-            else if(command.startsWith("."))
-                this.currentFile.write(command + "\n");
-            else
-                this.currentFile.write("\t\t" + command + "\n");
-            this.currentFile.flush();
+            for(String command : this.peepholeOptimizer.optimize(this.currentCommands)) {
+                if(command.startsWith("Label_"))
+                    this.currentFile.write("\t" + command + "\n");
+                else if(command.startsWith(".") || command.isEmpty())
+                    this.currentFile.write(command + "\n");
+                else
+                    this.currentFile.write("\t\t" + command + "\n");
+            }
+            this.currentFile.close();
         } catch (IOException e) {}
+        this.currentCommands = new ArrayList<>();
+    }
+
+    private String getFreshLabel() {
+        String label = "Label_" + this.labelNum;
+        this.labelNum += 1;
+        return label;
     }
 
     private String makeTypeSignature(Type t) {
-        if(t instanceof IntType) {
-            //TODO
-        } if(t instanceof BoolType) {
-            //TODO
-        } if(t instanceof StringType)
+        if(t instanceof IntType)
+            return "Ljava/lang/Integer;";
+        if(t instanceof BoolType)
+            return "Ljava/lang/Boolean;";
+        if(t instanceof StringType)
             return "Ljava/lang/String;";
         if(t instanceof ClassType)
-            return ((ClassType) t).getClassName().getName();
+            return "L" + ((ClassType) t).getClassName().getName() + ";";
         if(t instanceof ListType)
-            return "List";
+            return "LList;";
         if(t instanceof FptrType)
-            return "Fptr";
+            return "LFptr;";
         return null;
     }
 
@@ -144,9 +201,20 @@ public class CodeGenerator extends Visitor<String> {
             String parentName = currentClass.getParentClassName().getName();
             addCommand("invokespecial "+parentName+"/<init>()V");
         }
+        //the one of a class without a constructor is profiled like a declared one
+        boolean profiled = profile && currentClass.getConstructor() == null;
+        if(profiled) {
+            addCommand(".limit locals 3");
+            addCommand(".limit stack 4");
+            profileStartSlot = 1;
+            addCommand("invokestatic java/lang/System/nanoTime()J");
+            addCommand("lstore " + profileStartSlot);
+        }
         for(int i = 0; i < currentClass.getFields().size(); i++) {
             initializeVar(currentClass.getFields().get(i).getVarDeclaration(), i+1);
         }
+        if(profiled)
+            addProfileExit();
         addCommand("return");
         addCommand(".end method");
         addCommand("");
@@ -158,16 +226,72 @@ public class CodeGenerator extends Visitor<String> {
         addCommand(".limit locals "+this.stack_size);
         addCommand("new Main");
         addCommand("invokespecial Main/<init>()V");
+        addCommand("invokestatic Printer/flush()V");
+        addCommand("return");
+        addCommand(".end method");
+        addCommand("");
+    }
+
+    //each class registers its methods with Profiler once and keeps the id of the first one,
+    //the id of a method is that plus its index in profiledMethods
+    private void addProfileRegistration(String className) {
+        StringBuilder labels = new StringBuilder();
+        for(MethodDeclaration m : profiledMethods) {
+            if(labels.length() > 0)
+                labels.append(",");
+            labels.append(className).append(".").append(m.getMethodName().getName()).append(" (line ").append(m.getLine()).append(")");
+        }
+        addCommand(".field private static profile$first I");
+        addCommand("");
+        addCommand(".method static <clinit>()V");
+        addCommand(".limit stack 1");
+        addCommand("ldc \"" + labels + "\"");
+        addCommand("invokestatic Profiler/register(Ljava/lang/String;)I");
+        addCommand("putstatic " + className + "/profile$first I");
         addCommand("return");
         addCommand(".end method");
         addCommand("");
     }
 
+    //starts the code of a line of the sophia source, the code that follows belongs to it until the next .line
+    private void addLine(Node node) {
+        if(node.getLine() <= 0 || node.getLine() == lastLine)
+            return;
+        addCommand(".line " + node.getLine());
+        lastLine = node.getLine();
+    }
+
+    //names are quoted so that sophia names which are jasmin keywords stay names
+    private void addLocalVariables(MethodDeclaration methodDeclaration, String startLabel, String endLabel) {
+        String range = " from " + startLabel + " to " + endLabel;
+        addCommand(".var 0 is 'this' L" + currentClass.getClassName().getName() + ";" + range);
+        ArrayList<VarDeclaration> locals = new ArrayList<>(methodDeclaration.getArgs());
+        locals.addAll(methodDeclaration.getLocalVars());
+        for(int i = 0; i < locals.size(); i++) {
+            String signature = makeTypeSignature(locals.get(i).getType());
+            if(signature != null)
+                addCommand(".var " + (i + 1) + " is '" + locals.get(i).getVarName().getName() + "' " + signature + range);
+        }
+    }
+
+    private void addProfileExit() {
+        if(!profile)
+            return;
+        addCommand("getstatic " + currentClass.getClassName().getName() + "/profile$first I");
+        addCommand("ldc " + profiledMethods.indexOf(currentMethod));
+        addCommand("iadd");
+        addCommand("lload " + profileStartSlot);
+        addCommand("invokestatic Profiler/exit(IJ)V");
+    }
+
     private int slotOf(String identifier) {     // we have to handle the temp variables
         ArrayList <VarDeclaration> locals = new ArrayList<>(currentMethod.getArgs());
         locals.addAll(currentMethod.getLocalVars());
-//        if(identifier.equals(""))
-//            return locals.size() + 1 + this.lastTempValue;
+        if(identifier.equals("")) {
+            int tempSlot = locals.size() + 1 + this.lastTempValue;
+            this.lastTempValue += 1;
+            return tempSlot;
+        }
         for(int i = 0; i < locals.size(); i++)
             if(locals.get(i).getVarName().getName().equals(identifier))
                 return i+1;
@@ -176,7 +300,11 @@ public class CodeGenerator extends Visitor<String> {
 
     @Override
     public String visit(Program program) {      // done
+        if(this.outputPath == null)
+            this.prepareOutputFolder();
         for(ClassDeclaration c : program.getClasses()) {
+            if(classesToGenerate != null && !classesToGenerate.contains(c.getClassName().getName()))
+                continue;
             this.currentClass = c;
             this.expressionTypeChecker.setCurrentClass(c);
             c.accept(this);
@@ -187,7 +315,13 @@ public class CodeGenerator extends Visitor<String> {
     @Override
     public String visit(ClassDeclaration classDeclaration) {    // done
         createFile(classDeclaration.getClassName().getName());
-        addCommand(".class public "+classDeclaration.getClassName().getName());
+        String className = classDeclaration.getClassName().getName();
+        if(sourceFile != null)
+            addCommand(".source \"" + sourceFile + "\"");
+        if(hierarchyAnalysis != null && hierarchyAnalysis.isLeaf(className))
+            addCommand(".class public final " + className);
+        else
+            addCommand(".class public " + className);
         if(classDeclaration.getParentClassName() == null)
             addCommand(".super java/lang/Object");
         else
@@ -195,8 +329,23 @@ public class CodeGenerator extends Visitor<String> {
         addCommand("");
         for(FieldDeclaration f : classDeclaration.getFields())
             f.accept(this);
-        if(classDeclaration.getConstructor() == null)
+        if(profile) {
+            profiledMethods = new ArrayList<>();
+            if(classDeclaration.getConstructor() != null)
+                profiledMethods.add(classDeclaration.getConstructor());
+            else {
+                ConstructorDeclaration defaultConstructor = new ConstructorDeclaration(classDeclaration.getClassName());
+                defaultConstructor.setLine(classDeclaration.getLine());
+                profiledMethods.add(defaultConstructor);
+            }
+            profiledMethods.addAll(classDeclaration.getMethods());
+            addProfileRegistration(className);
+        }
+        if(classDeclaration.getConstructor() == null) {
+            if(profile)
+                this.currentMethod = profiledMethods.get(0);
             addDefaultConstructor();
+        }
         else {
             this.currentMethod = classDeclaration.getConstructor();
             this.expressionTypeChecker.setCurrentMethod(classDeclaration.getConstructor());
@@ -207,6 +356,7 @@ public class CodeGenerator extends Visitor<String> {
             this.expressionTypeChecker.setCurrentMethod(m);
             m.accept(this);
         }
+        writeCurrentFile();
         return null;
     }
 
@@ -248,7 +398,22 @@ public class CodeGenerator extends Visitor<String> {
         for(VarDeclaration v : methodDeclaration.getArgs()) {
             argsSigniture = argsSigniture.concat(makeTypeSignature(v.getType()));
         }
-        addCommand(".method public <init>("+argsSigniture+")V");
+        if(methodDeclaration instanceof ConstructorDeclaration)
+            addCommand(".method public <init>("+argsSigniture+")V");
+        else {
+            String methodName = methodDeclaration.getMethodName().getName();
+            String returnSignature = makeTypeSignature(methodDeclaration.getReturnType());
+            String modifiers = "public ";
+            if(hierarchyAnalysis != null && !hierarchyAnalysis.isOverridden(currentClass.getClassName().getName(), methodName))
+                modifiers += "final ";
+            addCommand(".method " + modifiers + methodName + "(" + argsSigniture + ")" +
+                    (returnSignature == null ? "V" : returnSignature));
+        }
+        String startLabel = getFreshLabel();
+        String endLabel = getFreshLabel();
+        addCommand(startLabel + ":");
+        this.lastLine = 0;
+        addLine(methodDeclaration);
         addCommand("aload_0");
         if(methodDeclaration instanceof ConstructorDeclaration) {
             //todo call parent constructor
@@ -265,6 +430,14 @@ public class CodeGenerator extends Visitor<String> {
         }
         addCommand(".limit locals 128");
         addCommand(".limit stack 128");
+        this.lastTempValue = 0;
+        if(profile) {
+            //a long takes two slots
+            profileStartSlot = slotOf("");
+            slotOf("");
+            addCommand("invokestatic java/lang/System/nanoTime()J");
+            addCommand("lstore " + profileStartSlot);
+        }
         //todo visit local vars and body and add return if needed
         for(int i = 0; i < methodDeclaration.getLocalVars().size(); i++) {
             methodDeclaration.getLocalVars().get(i).accept(this);
@@ -273,8 +446,12 @@ public class CodeGenerator extends Visitor<String> {
         for (Statement stmt: methodDeclaration.getBody()) {
             stmt.accept(this);
         }
-        if (!methodDeclaration.getDoesReturn())
+        if (!methodDeclaration.getDoesReturn()) {
+            addProfileExit();
             addCommand("return");
+        }
+        addCommand(endLabel + ":");
+        addLocalVariables(methodDeclaration, startLabel, endLabel);
         addCommand(".end method");
         addCommand("");
         return null;
@@ -294,6 +471,7 @@ public class CodeGenerator extends Visitor<String> {
 
     @Override
     public String visit(AssignmentStmt assignmentStmt) {
+        addLine(assignmentStmt);
         //todo
         return null;
     }
@@ -309,26 +487,47 @@ public class CodeGenerator extends Visitor<String> {
 
     @Override
     public String visit(ConditionalStmt conditionalStmt) {
-        //todo
+        addLine(conditionalStmt);
+        String elseLabel = getFreshLabel();
+        String endLabel = getFreshLabel();
+        addCommand(branch(conditionalStmt.getCondition(), false, elseLabel));
+        conditionalStmt.getThenBody().accept(this);
+        addCommand("goto " + endLabel);
+        addCommand(elseLabel + ":");
+        if(conditionalStmt.getElseBody() != null)
+            conditionalStmt.getElseBody().accept(this);
+        addCommand(endLabel + ":");
         return null;
     }
 
     @Override
     public String visit(MethodCallStmt methodCallStmt) {
+        addLine(methodCallStmt);
         //todo
         return null;
     }
 
     @Override
     public String visit(PrintStmt print) {
-        //todo
+        addLine(print);
+        //goes through the buffer of Printer, which is flushed when it fills, at the end of main and at exit
+        Type argType = print.getArg().accept(expressionTypeChecker);
+        addCommand(print.getArg().accept(this));
+        if(argType instanceof IntType)
+            addCommand("invokestatic Printer/print(I)V");
+        else if(argType instanceof BoolType)
+            addCommand("invokestatic Printer/print(Z)V");
+        else
+            addCommand("invokestatic Printer/print(Ljava/lang/String;)V");
         return null;
     }
 
     @Override
     public String visit(ReturnStmt returnStmt) {
+        addLine(returnStmt);
         Type type = returnStmt.getReturnedExpr().accept(expressionTypeChecker);
         if(type instanceof NullType) {
+            addProfileExit();
             addCommand("return");
         }
         else {
@@ -336,44 +535,190 @@ public class CodeGenerator extends Visitor<String> {
             Expression exp = returnStmt.getReturnedExpr();
             Type returnType = exp.accept(this.expressionTypeChecker);
             addCommand(exp.accept(this));
-            if (returnType instanceof IntType) {
+            //methods return ints and bools boxed, like they are stored in locals
+            if (returnType instanceof IntType)
                 addCommand("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
-                addCommand("ireturn");
-            }
-            else if (returnType instanceof BoolType){
-                addCommand("invokevirtual java/lang/Boolean/booleanValue()Z");
-            }
-            else {
-
-            }
+            else if (returnType instanceof BoolType)
+                addCommand("invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;");
+            addProfileExit();
+            addCommand("areturn");
         }
         return null;
     }
 
     @Override
     public String visit(BreakStmt breakStmt) {
-        //todo
+        addLine(breakStmt);
+        addCommand("goto " + this.breakLabels.peek());
         return null;
     }
 
     @Override
     public String visit(ContinueStmt continueStmt) {
-        //todo
+        addLine(continueStmt);
+        addCommand("goto " + this.continueLabels.peek());
         return null;
     }
 
     @Override
     public String visit(ForeachStmt foreachStmt) {
-        //todo
+        addLine(foreachStmt);
+        // the element array and its length are loaded once before the loop, so each iteration is
+        // a plain aaload on a primitive index instead of a List.getElement call
+        ListType listType = (ListType) foreachStmt.getList().accept(expressionTypeChecker);
+        Type elementType = listType.getElementType(0).getType();
+        int arraySlot = slotOf("");
+        int lengthSlot = slotOf("");
+        int indexSlot = slotOf("");
+        int varSlot = slotOf(foreachStmt.getVariable().getName());
+        String startLabel = getFreshLabel();
+        String continueLabel = getFreshLabel();
+        String breakLabel = getFreshLabel();
+        addCommand(foreachStmt.getList().accept(this));
+        addCommand("getfield List/elements [Ljava/lang/Object;");
+        addCommand("dup");
+        addCommand("astore " + arraySlot);
+        addCommand("arraylength");
+        addCommand("istore " + lengthSlot);
+        addCommand("iconst_0");
+        addCommand("istore " + indexSlot);
+        addCommand(startLabel + ":");
+        addCommand("iload " + indexSlot);
+        addCommand("iload " + lengthSlot);
+        addCommand("if_icmpge " + breakLabel);
+        addCommand("aload " + arraySlot);
+        addCommand("iload " + indexSlot);
+        addCommand("aaload");
+        if(elementType instanceof ListType) {
+            addCommand("checkcast List");
+            addCommand("astore " + varSlot);
+            addCommand("new List");
+            addCommand("dup");
+            addCommand("aload " + varSlot);
+            addCommand("invokespecial List/<init>(LList;)V");
+        }
+        else if(elementType instanceof IntType)
+            addCommand("checkcast java/lang/Integer");
+        else if(elementType instanceof BoolType)
+            addCommand("checkcast java/lang/Boolean");
+        else if(elementType instanceof StringType)
+            addCommand("checkcast java/lang/String");
+        else if(elementType instanceof ClassType)
+            addCommand("checkcast " + ((ClassType) elementType).getClassName().getName());
+        else if(elementType instanceof FptrType)
+            addCommand("checkcast Fptr");
+        addCommand("astore " + varSlot);
+        this.breakLabels.push(breakLabel);
+        this.continueLabels.push(continueLabel);
+        foreachStmt.getBody().accept(this);
+        this.breakLabels.pop();
+        this.continueLabels.pop();
+        addCommand(continueLabel + ":");
+        addLine(foreachStmt);
+        addCommand("iinc " + indexSlot + " 1");
+        addCommand("goto " + startLabel);
+        addCommand(breakLabel + ":");
         return null;
     }
 
     @Override
     public String visit(ForStmt forStmt) {
-        //todo
+        addLine(forStmt);
+        String startLabel = getFreshLabel();
+        String continueLabel = getFreshLabel();
+        String breakLabel = getFreshLabel();
+        if(forStmt.getInitialize() != null)
+            forStmt.getInitialize().accept(this);
+        addCommand(startLabel + ":");
+        if(forStmt.getCondition() != null)
+            addCommand(branch(forStmt.getCondition(), false, breakLabel));
+        this.breakLabels.push(breakLabel);
+        this.continueLabels.push(continueLabel);
+        forStmt.getBody().accept(this);
+        this.breakLabels.pop();
+        this.continueLabels.pop();
+        addCommand(continueLabel + ":");
+        addLine(forStmt);
+        if(forStmt.getUpdate() != null)
+            forStmt.getUpdate().accept(this);
+        addCommand("goto " + startLabel);
+        addCommand(breakLabel + ":");
         return null;
     }
 
+    //commands that jump to target when condition evaluates to jumpWhen and fall through otherwise,
+    //so the right operand of and/or is only evaluated when the left one does not decide the result
+    private String branch(Expression condition, boolean jumpWhen, String target) {
+        String commands = "";
+        if(condition instanceof BoolValue) {
+            if(((BoolValue) condition).getConstant() == jumpWhen)
+                commands += "goto " + target + "\n";
+            return commands;
+        }
+        if(condition instanceof UnaryExpression && ((UnaryExpression) condition).getOperator() == UnaryOperator.not)
+            return branch(((UnaryExpression) condition).getOperand(), !jumpWhen, target);
+        if(!(condition instanceof BinaryExpression)) {
+            commands += condition.accept(this);
+            commands += (jumpWhen ? "ifne " : "ifeq ") + target + "\n";
+            return commands;
+        }
+        BinaryOperator operator = ((BinaryExpression) condition).getBinaryOperator();
+        Expression op1 = ((BinaryExpression) condition).getFirstOperand();
+        Expression op2 = ((BinaryExpression) condition).getSecondOperand();
+        if(operator == BinaryOperator.and || operator == BinaryOperator.or) {
+            boolean decidedBy = (operator == BinaryOperator.or);
+            if(jumpWhen == decidedBy) {
+                commands += branch(op1, jumpWhen, target);
+                commands += branch(op2, jumpWhen, target);
+            }
+            else {
+                String skipLabel = getFreshLabel();
+                commands += branch(op1, decidedBy, skipLabel);
+                commands += branch(op2, jumpWhen, target);
+                commands += skipLabel + ":\n";
+            }
+        }
+        else if(operator == BinaryOperator.gt || operator == BinaryOperator.lt) {
+            commands += op1.accept(this);
+            commands += op2.accept(this);
+            if(operator == BinaryOperator.gt)
+                commands += (jumpWhen ? "if_icmpgt " : "if_icmple ") + target + "\n";
+            else
+                commands += (jumpWhen ? "if_icmplt " : "if_icmpge ") + target + "\n";
+        }
+        else if(operator == BinaryOperator.eq || operator == BinaryOperator.neq) {
+            Type type = op1.accept(expressionTypeChecker);
+            boolean jumpOnEqual = (operator == BinaryOperator.eq) == jumpWhen;
+            commands += op1.accept(this);
+            commands += op2.accept(this);
+            if(type instanceof IntType || type instanceof BoolType)
+                commands += (jumpOnEqual ? "if_icmpeq " : "if_icmpne ") + target + "\n";
+            else if(type instanceof StringType) {
+                commands += "invokevirtual java/lang/String/equals(Ljava/lang/Object;)Z\n";
+                commands += (jumpOnEqual ? "ifne " : "ifeq ") + target + "\n";
+            }
+            else
+                commands += (jumpOnEqual ? "if_acmpeq " : "if_acmpne ") + target + "\n";
+        }
+        else {
+            commands += condition.accept(this);
+            commands += (jumpWhen ? "ifne " : "ifeq ") + target + "\n";
+        }
+        return commands;
+    }
+
+    private String materializeCondition(Expression condition) {
+        String falseLabel = getFreshLabel();
+        String endLabel = getFreshLabel();
+        String commands = branch(condition, false, falseLabel);
+        commands += "iconst_1\n";
+        commands += "goto " + endLabel + "\n";
+        commands += falseLabel + ":\n";
+        commands += "iconst_0\n";
+        commands += endLabel + ":\n";
+        return commands;
+    }
+
     @Override
     public String visit(BinaryExpression binaryExpression) {
         BinaryOperator operator = binaryExpression.getBinaryOperator();
@@ -414,62 +759,21 @@ public class CodeGenerator extends Visitor<String> {
             //todo
             commands += op1.accept(this);
             commands += op2.accept(this);
-            String s1, s2;
-            if (operator == BinaryOperator.gt) {
-                s1 =  String.valueOf(this.labelNum);
-                this.labelNum += 1;
-                commands += "if_icmpgt Label" + s1 + "\n"; //???
-                commands += "iconst_0\n";
-                s2 =  String.valueOf(this.labelNum);
-                this.labelNum += 1;
-                commands += "goto Label" + s2 + "\n";
-                commands += "Label" + s1 +":\n";
-                commands += "iconst_1";
-                commands += "Label" + s2 + ":\n";
-            }
-
-            if (operator == BinaryOperator.lt) {
-                s1 = String.valueOf(this.labelNum);
-                this.labelNum += 1;
-                commands += "if_icmplt Label" + s1 + "\n";
-                commands += "iconst_0\n";
-                s2 = String.valueOf(this.labelNum);
-                this.labelNum += 1;
-                commands += "goto Label" + s2 + "\n";
-                commands += "Label" + s1 + ":\n";
-                commands += "iconst_1";
-                commands += "Label" + s2 + ":\n";
-            }
-        }
-        else if((operator == BinaryOperator.eq) || (operator == BinaryOperator.neq)) {
-            //todo
-            commands += op1.accept(this);
-            commands += op2.accept(this);
-            Type t1 = op1.accept(this.expressionTypeChecker);
-            Type t2 = op2.accept(this.expressionTypeChecker);
-            /*if (t1 instanceof IntType && t2 instanceof IntType) {
-                if (operator == BinaryOperator.eq)
-                    commands += "if_icmpeq\n";
-                if (operator == BinaryOperator.neq)
-                    commands += "if_icmpne\n";
-            } else {
-                if (operator == BinaryOperator.eq)
-                    commands += "if_acmpeq\n";
-                if (operator == BinaryOperator.neq)
-                    commands += "if_acmpne\n";
-            }*/
-        }
-        else if(operator == BinaryOperator.and) {
-            //todo
-            commands += op1.accept(this);
-            commands += op2.accept(this);
-            commands += "ior\n";
+            String trueLabel = getFreshLabel();
+            String endLabel = getFreshLabel();
+            if (operator == BinaryOperator.gt)
+                commands += "if_icmpgt " + trueLabel + "\n";
+            else
+                commands += "if_icmplt " + trueLabel + "\n";
+            commands += "iconst_0\n";
+            commands += "goto " + endLabel + "\n";
+            commands += trueLabel + ":\n";
+            commands += "iconst_1\n";
+            commands += endLabel + ":\n";
         }
-        else if(operator == BinaryOperator.or) {
-            //todo
-            commands += op1.accept(this);
-            commands += op2.accept(this);
-            commands += "iand\n";
+        else if((operator == BinaryOperator.eq) || (operator == BinaryOperator.neq) ||
+                (operator == BinaryOperator.and) || (operator == BinaryOperator.or)) {
+            commands += materializeCondition(binaryExpression);
         }
         else if(operator == BinaryOperator.assign) {
             Type firstType = binaryExpression.getFirstOperand().accept(expressionTypeChecker);
@@ -504,7 +808,6 @@ public class CodeGenerator extends Visitor<String> {
     public String visit(UnaryExpression unaryExpression) {
         UnaryOperator operator = unaryExpression.getOperator();
         String commands = "";
-        String s1, s2;
         if(operator == UnaryOperator.minus) {
             //todo
             commands += unaryExpression.getOperand().accept(this);
@@ -513,16 +816,14 @@ public class CodeGenerator extends Visitor<String> {
         else if(operator == UnaryOperator.not) {
             //todo
             commands += unaryExpression.getOperand().accept(this);
-            s1 = String.valueOf(this.labelNum);
-            this.labelNum += 1;
-            s2 = String.valueOf(this.labelNum);
-            this.labelNum += 1;
-            commands += "ifeq Label" + s1 + "\n";
+            String trueLabel = getFreshLabel();
+            String endLabel = getFreshLabel();
+            commands += "ifeq " + trueLabel + "\n";
             commands += "iconst_0\n";
-            commands += "goto Label" + s2 + "\n";
-            commands += "Label" + s1 + ":\n";
+            commands += "goto " + endLabel + "\n";
+            commands += trueLabel + ":\n";
             commands += "iconst_1\n";
-            commands += "Label" + s2 + ":\n";
+            commands += endLabel + ":\n";
         }
         else if((operator == UnaryOperator.predec) || (operator == UnaryOperator.preinc)) {
             if(unaryExpression.getOperand() instanceof Identifier) {
@@ -598,15 +899,15 @@ public class CodeGenerator extends Visitor<String> {
         //todo
         Type t = identifier.accept(this.expressionTypeChecker);
         if (t instanceof IntType || t instanceof BoolType) {
+            int idx = this.slotOf(identifier.getName());
+            if (idx < 4)
+                commands += "aload_" + idx + "\n";
+            else
+                commands += "aload " + idx + "\n";
             if (t instanceof IntType)
                 commands += "invokevirtual java/lang/Integer/intValue()I\n";
             if (t instanceof BoolType)
                 commands += "invokevirtual java/lang/Boolean/booleanValue()Z\n";
-            int idx = this.slotOf(identifier.getName());
-            if (idx < 4)
-                commands += "iload_" + idx + "\n";
-            else
-                commands += "iload " + idx + "\n";
         }
         else {
             int idx = this.slotOf(identifier.getName());
@@ -646,10 +947,52 @@ public class CodeGenerator extends Visitor<String> {
         return commands;
     }
 
+    //a list is a value, so a list something else may refer to is copied before it is stored,
+    //a list literal is fresh and is stored as it is
+    private String listCopyOf(Expression list) {
+        if(list instanceof ListValue)
+            return list.accept(this);
+        String commands = "";
+        commands += "new List\n";
+        commands += "dup\n";
+        commands += list.accept(this);
+        commands += "invokespecial List/<init>(LList;)V\n";
+        return commands;
+    }
+
+    //a value as it is kept in the elements of a list
+    private String asElement(Expression expression) {
+        Type type = expression.accept(expressionTypeChecker);
+        if(type instanceof ListType)
+            return listCopyOf(expression);
+        String commands = expression.accept(this);
+        if(type instanceof IntType)
+            commands += "invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;\n";
+        else if(type instanceof BoolType)
+            commands += "invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;\n";
+        return commands;
+    }
+
+    //the elements are stored straight into the array of a list made with their count
     @Override
     public String visit(ListValue listValue) {
+        ArrayList<Expression> elements = listValue.getElements();
         String commands = "";
-        //todo
+        commands += "new List\n";
+        commands += "dup\n";
+        commands += "ldc " + elements.size() + "\n";
+        commands += "invokespecial List/<init>(I)V\n";
+        if(elements.isEmpty())
+            return commands;
+        commands += "dup\n";
+        commands += "getfield List/elements [Ljava/lang/Object;\n";
+        for(int i = 0; i < elements.size(); i++) {
+            commands += "dup\n";
+            commands += "ldc " + i + "\n";
+            commands += asElement(elements.get(i));
+            commands += "aastore\n";
+        }
+        commands += "pop\n";
         return commands;
     }
 
@@ -657,7 +1000,7 @@ public class CodeGenerator extends Visitor<String> {
     public String visit(NullValue nullValue) {
         String commands = "";
         //todo
-        commands += "aconst_null";
+        commands += "aconst_null\n";
         return commands;
     }
 
@@ -665,14 +1008,14 @@ public class CodeGenerator extends Visitor<String> {
     public String visit(IntValue intValue) {
         String commands = "";
         //todo
-        commands += "ldc " + intValue + "\n";
+        commands += "ldc " + intValue.getConstant() + "\n";
         return commands;
     }
 
     @Override
     public String visit(BoolValue boolValue) {
         String commands = "";
-        //todo
+        commands += (boolValue.getConstant() ? "iconst_1" : "iconst_0") + "\n";
         return commands;
     }
 
@@ -680,7 +1023,7 @@ public class CodeGenerator extends Visitor<String> {
     public String visit(StringValue stringValue) {
         String commands = "";
         //todo
-        commands += "ldc " + stringValue + "\n"; //quotation
+        commands += "ldc \"" + stringValue.getConstant() + "\"\n";
         return commands;
     }
 
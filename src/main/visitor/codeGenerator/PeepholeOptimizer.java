@@ -0,0 +1,290 @@
+package main.visitor.codeGenerator;
+
+import main.compilerMetrics.CompilerMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+//rewrites the instructions of each generated method until none of the patterns below matches anymore
+public class PeepholeOptimizer {
+    private static final Map<String, String> negatedJumps = new HashMap<>();
+    static {
+        String[][] pairs = {{"ifeq", "ifne"}, {"iflt", "ifge"}, {"ifgt", "ifle"}, {"if_icmpeq", "if_icmpne"},
+                {"if_icmplt", "if_icmpge"}, {"if_icmpgt", "if_icmple"}, {"if_acmpeq", "if_acmpne"}, {"ifnull", "ifnonnull"}};
+        for(String[] pair : pairs) {
+            negatedJumps.put(pair[0], pair[1]);
+            negatedJumps.put(pair[1], pair[0]);
+        }
+    }
+
+    private final CompilerMetrics metrics;
+
+    public PeepholeOptimizer(CompilerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public ArrayList<String> optimize(ArrayList<String> commands) {
+        ArrayList<String> result = new ArrayList<>();
+        ArrayList<String> method = null;
+        for(String command : commands) {
+            if(method == null) {
+                result.add(command);
+                if(command.startsWith(".method"))
+                    method = new ArrayList<>();
+            }
+            else if(command.startsWith(".end method")) {
+                result.addAll(this.optimizeMethod(method));
+                result.add(command);
+                method = null;
+            }
+            else
+                method.add(command.trim());
+        }
+        return result;
+    }
+
+    private ArrayList<String> optimizeMethod(ArrayList<String> method) {
+        metrics.add("peephole.instructionsBefore", countInstructions(method));
+        boolean changed = true;
+        while(changed) {
+            changed = rewriteConstants(method);
+            changed |= removeBoxUnboxPairs(method);
+            changed |= fuseCompareAndBranch(method);
+            changed |= threadJumps(method);
+            changed |= removeJumpsToNextLabel(method);
+            changed |= removeUnreachableInstructions(method);
+            changed |= removeUnusedLabels(method);
+            changed |= removeEmptyLines(method);
+        }
+        metrics.add("peephole.instructionsAfter", countInstructions(method));
+        return method;
+    }
+
+    private static boolean isLabel(String command) {
+        return command.endsWith(":") && !command.contains(" ");
+    }
+
+    //a .line only marks where the code of a source line starts, like a label it takes no space
+    private static boolean isLine(String command) {
+        return command.startsWith(".line ");
+    }
+
+    private static boolean isInstruction(String command) {
+        return !command.isEmpty() && !command.startsWith(".") && !isLabel(command);
+    }
+
+    private static boolean isJump(String command) {
+        String opcode = opcodeOf(command);
+        return opcode.equals("goto") || negatedJumps.containsKey(opcode);
+    }
+
+    private static String opcodeOf(String command) {
+        int space = command.indexOf(' ');
+        return space == -1 ? command : command.substring(0, space);
+    }
+
+    private static String targetOf(String jump) {
+        return jump.substring(jump.lastIndexOf(' ') + 1);
+    }
+
+    private static int countInstructions(ArrayList<String> method) {
+        int count = 0;
+        for(String command : method)
+            if(isInstruction(command))
+                count++;
+        return count;
+    }
+
+    //how many times each label is used by a jump or a directive
+    private static Map<String, Integer> countReferences(ArrayList<String> method) {
+        Map<String, Integer> references = new HashMap<>();
+        for(String command : method)
+            if(!isLabel(command))
+                for(String token : command.split("\\s+"))
+                    references.merge(token, 1, Integer::sum);
+        return references;
+    }
+
+    private boolean rewriteConstants(ArrayList<String> method) {
+        boolean changed = false;
+        for(int i = 0; i < method.size(); i++) {
+            String command = method.get(i);
+            if(!command.matches("ldc -?\\d+"))
+                continue;
+            long value = Long.parseLong(command.substring(4));
+            String replacement;
+            if(value == -1)
+                replacement = "iconst_m1";
+            else if(value >= 0 && value <= 5)
+                replacement = "iconst_" + value;
+            else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+                replacement = "bipush " + value;
+            else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+                replacement = "sipush " + value;
+            else
+                continue;
+            method.set(i, replacement);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean removeBoxUnboxPairs(ArrayList<String> method) {
+        boolean changed = false;
+        for(int i = 0; i + 1 < method.size(); i++) {
+            String box = method.get(i);
+            String unbox = method.get(i + 1);
+            if((box.equals("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;") &&
+                    unbox.equals("invokevirtual java/lang/Integer/intValue()I")) ||
+                    (box.equals("invokestatic java/lang/Boolean/valueOf(Z)Ljava/lang/Boolean;") &&
+                            unbox.equals("invokevirtual java/lang/Boolean/booleanValue()Z"))) {
+                method.remove(i + 1);
+                method.remove(i);
+                i--;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    //  <jump> L1, iconst_0, goto L2, L1:, iconst_1, L2:, ifeq/ifne L3  ->  <jump or its negation> L3
+    private boolean fuseCompareAndBranch(ArrayList<String> method) {
+        Map<String, Integer> references = countReferences(method);
+        boolean changed = false;
+        for(int i = 0; i + 6 < method.size(); i++) {
+            String jump = method.get(i);
+            if(!isJump(jump) || opcodeOf(jump).equals("goto"))
+                continue;
+            String trueLabel = targetOf(jump);
+            String fallValue = method.get(i + 1);
+            String skip = method.get(i + 2);
+            String jumpValue = method.get(i + 4);
+            String branch = method.get(i + 6);
+            if(!method.get(i + 3).equals(trueLabel + ":") || !opcodeOf(skip).equals("goto") ||
+                    !method.get(i + 5).equals(targetOf(skip) + ":"))
+                continue;
+            boolean jumpPushesTrue;
+            if(fallValue.equals("iconst_0") && jumpValue.equals("iconst_1"))
+                jumpPushesTrue = true;
+            else if(fallValue.equals("iconst_1") && jumpValue.equals("iconst_0"))
+                jumpPushesTrue = false;
+            else
+                continue;
+            String branchOpcode = opcodeOf(branch);
+            if(!branchOpcode.equals("ifeq") && !branchOpcode.equals("ifne"))
+                continue;
+            if(references.get(trueLabel) != 1 || references.get(targetOf(skip)) != 1)
+                continue;
+            boolean branchOnTrue = branchOpcode.equals("ifne") == jumpPushesTrue;
+            String opcode = branchOnTrue ? opcodeOf(jump) : negatedJumps.get(opcodeOf(jump));
+            method.set(i, opcode + " " + targetOf(branch));
+            for(int j = 0; j < 6; j++)
+                method.remove(i + 1);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean threadJumps(ArrayList<String> method) {
+        Map<String, String> gotoAfterLabel = new HashMap<>();
+        for(int i = 0; i < method.size(); i++) {
+            if(!isLabel(method.get(i)))
+                continue;
+            int j = i + 1;
+            while(j < method.size() && (isLabel(method.get(j)) || isLine(method.get(j))))
+                j++;
+            if(j < method.size() && opcodeOf(method.get(j)).equals("goto"))
+                gotoAfterLabel.put(method.get(i).substring(0, method.get(i).length() - 1), targetOf(method.get(j)));
+        }
+        boolean changed = false;
+        for(int i = 0; i < method.size(); i++) {
+            String command = method.get(i);
+            if(!isJump(command))
+                continue;
+            String target = targetOf(command);
+            String finalTarget = target;
+            for(int hops = 0; hops < gotoAfterLabel.size() && gotoAfterLabel.containsKey(finalTarget); hops++)
+                finalTarget = gotoAfterLabel.get(finalTarget);
+            if(!finalTarget.equals(target)) {
+                method.set(i, opcodeOf(command) + " " + finalTarget);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean removeJumpsToNextLabel(ArrayList<String> method) {
+        boolean changed = false;
+        for(int i = 0; i < method.size(); i++) {
+            String command = method.get(i);
+            if(!opcodeOf(command).equals("goto"))
+                continue;
+            for(int j = i + 1; j < method.size() && (isLabel(method.get(j)) || isLine(method.get(j))); j++) {
+                if(method.get(j).equals(targetOf(command) + ":")) {
+                    method.remove(i);
+                    i--;
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean removeUnreachableInstructions(ArrayList<String> method) {
+        boolean changed = false;
+        boolean reachable = true;
+        for(int i = 0; i < method.size(); i++) {
+            String command = method.get(i);
+            if(isLabel(command))
+                reachable = true;
+            else if(!reachable && isInstruction(command)) {
+                method.remove(i);
+                i--;
+                changed = true;
+            }
+            else if(isInstruction(command) && (opcodeOf(command).equals("goto") || opcodeOf(command).endsWith("return")))
+                reachable = false;
+        }
+        return changed;
+    }
+
+    //a .line followed by another one before any instruction has no code left
+    private boolean removeEmptyLines(ArrayList<String> method) {
+        boolean changed = false;
+        int emptyLine = -1;
+        for(int i = 0; i < method.size(); i++) {
+            String command = method.get(i);
+            if(isInstruction(command))
+                emptyLine = -1;
+            else if(isLine(command)) {
+                if(emptyLine != -1) {
+                    method.remove(emptyLine);
+                    i--;
+                    changed = true;
+                }
+                emptyLine = i;
+            }
+        }
+        if(emptyLine != -1) {
+            method.remove(emptyLine);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private boolean removeUnusedLabels(ArrayList<String> method) {
+        Map<String, Integer> references = countReferences(method);
+        boolean changed = false;
+        for(int i = 0; i < method.size(); i++) {
+            String command = method.get(i);
+            if(isLabel(command) && !references.containsKey(command.substring(0, command.length() - 1))) {
+                method.remove(i);
+                i--;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
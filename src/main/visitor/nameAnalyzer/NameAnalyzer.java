@@ -18,9 +18,23 @@ public class NameAnalyzer {
     }
 
     public void analyze() {
+        this.collect();
+        this.check();
+    }
+
+    //only fills the symbol tables and the class hierarchy, the checks are left to the caller
+    public void collect() {
         NameCollector nameCollector = new NameCollector();
         this.program.accept(nameCollector);
         this.linkParentSymbolTables();
+    }
+
+    //for symbol tables that were already filled, like the ones loaded from the ast cache
+    public void linkCollected() {
+        this.linkParentSymbolTables();
+    }
+
+    public void check() {
         NameChecker nameChecker = new NameChecker(classHierarchy);
         this.program.accept(nameChecker);
     }
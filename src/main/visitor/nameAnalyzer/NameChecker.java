@@ -36,6 +36,13 @@ public class NameChecker extends Visitor<Void> {
         }
     }
 
+    //checks a single class, for walks that visit the classes themselves
+    public void checkClass(Program program, ClassDeclaration classDeclaration) {
+        this.root = program;
+        this.currentClassName = classDeclaration.getClassName().getName();
+        classDeclaration.accept(this);
+    }
+
     @Override
     public Void visit(Program program) {
         this.root = program;
@@ -0,0 +1,222 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.visitor.Visitor;
+
+import java.util.*;
+
+//deep copies statements and expressions of a method into another one: every local named in replacements
+//becomes a copy of its replacement and this becomes a copy of thisReplacement, or stays when it is null.
+//all copies get the line of the call they replace, and the copier counts what it copied
+public class BodyCopier extends Visitor<Node> {
+    private final Map<String, Expression> replacements;
+    private final Expression thisReplacement;
+    private final int line;
+    private int copiedNodes = 0;
+    private int copiedReturns = 0;
+    private int copiedThis = 0;
+    private final Set<String> calledMembers = new HashSet<>();
+    private final Map<String, Integer> replacedUses = new HashMap<>();
+
+    public BodyCopier(Map<String, Expression> replacements, Expression thisReplacement, int line) {
+        this.replacements = replacements;
+        this.thisReplacement = thisReplacement;
+        this.line = line;
+    }
+
+    public int getCopiedNodes() {
+        return copiedNodes;
+    }
+
+    public int getCopiedReturns() {
+        return copiedReturns;
+    }
+
+    public int getCopiedThis() {
+        return copiedThis;
+    }
+
+    //how many times a local named in replacements was replaced
+    public int getReplacedUses(String name) {
+        return replacedUses.getOrDefault(name, 0);
+    }
+
+    //names of the members called through a member access, the called methods for a recursion check
+    public Set<String> getCalledMembers() {
+        return calledMembers;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Node> T copy(T node) {
+        if(node == null)
+            return null;
+        Node copied = node.accept(this);
+        copied.setLine(line);
+        copiedNodes++;
+        return (T) copied;
+    }
+
+    public <T extends Node> ArrayList<T> copyAll(List<T> nodes) {
+        ArrayList<T> copied = new ArrayList<>();
+        for(T node : nodes)
+            copied.add(this.copy(node));
+        return copied;
+    }
+
+    private Expression copyReplacement(Expression replacement) {
+        BodyCopier replacementCopier = new BodyCopier(Collections.emptyMap(), null, line);
+        Expression copied = replacementCopier.copy(replacement);
+        copiedNodes += replacementCopier.copiedNodes;
+        return copied;
+    }
+
+    @Override
+    public Node visit(AssignmentStmt assignmentStmt) {
+        return new AssignmentStmt(this.copy(assignmentStmt.getlValue()), this.copy(assignmentStmt.getrValue()));
+    }
+
+    @Override
+    public Node visit(BlockStmt blockStmt) {
+        return new BlockStmt(this.copyAll(blockStmt.getStatements()));
+    }
+
+    @Override
+    public Node visit(ConditionalStmt conditionalStmt) {
+        ConditionalStmt copied = new ConditionalStmt(this.copy(conditionalStmt.getCondition()), this.copy(conditionalStmt.getThenBody()));
+        copied.setElseBody(this.copy(conditionalStmt.getElseBody()));
+        return copied;
+    }
+
+    @Override
+    public Node visit(MethodCallStmt methodCallStmt) {
+        return new MethodCallStmt(this.copy(methodCallStmt.getMethodCall()));
+    }
+
+    @Override
+    public Node visit(PrintStmt print) {
+        return new PrintStmt(this.copy(print.getArg()));
+    }
+
+    @Override
+    public Node visit(ReturnStmt returnStmt) {
+        copiedReturns++;
+        return new ReturnStmt(this.copy(returnStmt.getReturnedExpr()));
+    }
+
+    @Override
+    public Node visit(BreakStmt breakStmt) {
+        return new BreakStmt();
+    }
+
+    @Override
+    public Node visit(ContinueStmt continueStmt) {
+        return new ContinueStmt();
+    }
+
+    @Override
+    public Node visit(ForeachStmt foreachStmt) {
+        ForeachStmt copied = new ForeachStmt(this.copy(foreachStmt.getVariable()), this.copy(foreachStmt.getList()));
+        copied.setBody(this.copy(foreachStmt.getBody()));
+        return copied;
+    }
+
+    @Override
+    public Node visit(ForStmt forStmt) {
+        ForStmt copied = new ForStmt();
+        copied.setInitialize(this.copy(forStmt.getInitialize()));
+        copied.setCondition(this.copy(forStmt.getCondition()));
+        copied.setUpdate(this.copy(forStmt.getUpdate()));
+        copied.setBody(this.copy(forStmt.getBody()));
+        return copied;
+    }
+
+    @Override
+    public Node visit(BinaryExpression binaryExpression) {
+        return new BinaryExpression(this.copy(binaryExpression.getFirstOperand()),
+                this.copy(binaryExpression.getSecondOperand()), binaryExpression.getBinaryOperator());
+    }
+
+    @Override
+    public Node visit(UnaryExpression unaryExpression) {
+        return new UnaryExpression(this.copy(unaryExpression.getOperand()), unaryExpression.getOperator());
+    }
+
+    //the member name is not a local, it is copied as it is
+    @Override
+    public Node visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        Identifier memberName = new Identifier(objectOrListMemberAccess.getMemberName().getName());
+        memberName.setLine(line);
+        return new ObjectOrListMemberAccess(this.copy(objectOrListMemberAccess.getInstance()), memberName);
+    }
+
+    @Override
+    public Node visit(Identifier identifier) {
+        Expression replacement = replacements.get(identifier.getName());
+        if(replacement != null) {
+            replacedUses.merge(identifier.getName(), 1, Integer::sum);
+            return this.copyReplacement(replacement);
+        }
+        return new Identifier(identifier.getName());
+    }
+
+    @Override
+    public Node visit(ListAccessByIndex listAccessByIndex) {
+        return new ListAccessByIndex(this.copy(listAccessByIndex.getInstance()), this.copy(listAccessByIndex.getIndex()));
+    }
+
+    @Override
+    public Node visit(MethodCall methodCall) {
+        if(methodCall.getInstance() instanceof ObjectOrListMemberAccess)
+            calledMembers.add(((ObjectOrListMemberAccess) methodCall.getInstance()).getMemberName().getName());
+        return new MethodCall(this.copy(methodCall.getInstance()), this.copyAll(methodCall.getArgs()));
+    }
+
+    @Override
+    public Node visit(NewClassInstance newClassInstance) {
+        return new NewClassInstance(newClassInstance.getClassType(), this.copyAll(newClassInstance.getArgs()));
+    }
+
+    @Override
+    public Node visit(ThisClass thisClass) {
+        copiedThis++;
+        if(thisReplacement != null)
+            return this.copyReplacement(thisReplacement);
+        return new ThisClass();
+    }
+
+    @Override
+    public Node visit(ListValue listValue) {
+        return new ListValue(this.copyAll(listValue.getElements()));
+    }
+
+    @Override
+    public Node visit(NullValue nullValue) {
+        return new NullValue();
+    }
+
+    @Override
+    public Node visit(IntValue intValue) {
+        return new IntValue(intValue.getConstant());
+    }
+
+    @Override
+    public Node visit(BoolValue boolValue) {
+        return new BoolValue(boolValue.getConstant());
+    }
+
+    @Override
+    public Node visit(StringValue stringValue) {
+        return new StringValue(stringValue.getConstant());
+    }
+}
@@ -0,0 +1,86 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.expression.MethodCall;
+import main.ast.nodes.expression.ObjectOrListMemberAccess;
+import main.ast.types.Type;
+import main.ast.types.single.ClassType;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.symbolTable.items.FieldSymbolTableItem;
+import main.symbolTable.items.MethodSymbolTableItem;
+import main.symbolTable.utils.graph.Graph;
+import main.visitor.typeChecker.ExpressionTypeChecker;
+
+import java.util.*;
+
+//the whole program is known at compile time, so a class nobody extends and a method no subclass redefines
+//can be final, and a call on them has exactly one target
+public class ClassHierarchyAnalysis {
+    private final Set<String> extendedClasses = new HashSet<>();
+    private final Map<String, Set<String>> overriddenMethods = new HashMap<>();
+
+    public ClassHierarchyAnalysis(Program program, Graph<String> classHierarchy) {
+        Map<String, ClassDeclaration> classes = new HashMap<>();
+        for(ClassDeclaration classDeclaration : program.getClasses())
+            classes.put(classDeclaration.getClassName().getName(), classDeclaration);
+        for(ClassDeclaration subclass : program.getClasses()) {
+            String subclassName = subclass.getClassName().getName();
+            for(String className : classes.keySet()) {
+                if(className.equals(subclassName) || !classHierarchy.isSecondNodeAncestorOf(subclassName, className))
+                    continue;
+                extendedClasses.add(className);
+                Set<String> overridden = overriddenMethods.computeIfAbsent(className, k -> new HashSet<>());
+                for(MethodDeclaration methodDeclaration : subclass.getMethods())
+                    overridden.add(methodDeclaration.getMethodName().getName());
+            }
+        }
+    }
+
+    public boolean isLeaf(String className) {
+        return !extendedClasses.contains(className);
+    }
+
+    //whether a subclass declares a method with this name, the class itself does not have to declare it
+    public boolean isOverridden(String className, String methodName) {
+        return overriddenMethods.getOrDefault(className, Collections.emptySet()).contains(methodName);
+    }
+
+    //the method a call runs when its receiver's class is known and no subclass of it declares the method, else null.
+    //the type checker has to be set to the class and method the call is in
+    public MethodDeclaration singleTargetOf(MethodCall methodCall, ExpressionTypeChecker expressionTypeChecker) {
+        if(!(methodCall.getInstance() instanceof ObjectOrListMemberAccess))
+            return null;
+        ObjectOrListMemberAccess memberAccess = (ObjectOrListMemberAccess) methodCall.getInstance();
+        Type receiverType = memberAccess.getInstance().accept(expressionTypeChecker);
+        if(!(receiverType instanceof ClassType))
+            return null;
+        String className = ((ClassType) receiverType).getClassName().getName();
+        String methodName = memberAccess.getMemberName().getName();
+        if(this.isOverridden(className, methodName))
+            return null;
+        MethodDeclaration target;
+        try {
+            SymbolTable classSymbolTable = ((ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + className, true)).getClassSymbolTable();
+            try {
+                classSymbolTable.getItem(FieldSymbolTableItem.START_KEY + methodName, true);
+                return null;
+            } catch (ItemNotFoundException notAField) {
+                target = ((MethodSymbolTableItem) classSymbolTable.getItem(MethodSymbolTableItem.START_KEY + methodName, true)).getMethodDeclaration();
+            }
+        } catch (ItemNotFoundException notAMethod) {
+            return null;
+        }
+        return target instanceof ConstructorDeclaration ? null : target;
+    }
+
+    //what the code of a class takes from its subclasses, for the caches that only look at a class and what it uses
+    public String factsOf(String className) {
+        return this.isLeaf(className) ? "leaf" :
+                "overridden " + String.join(",", new TreeSet<>(overriddenMethods.get(className)));
+    }
+}
@@ -0,0 +1,163 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.expression.BinaryExpression;
+import main.ast.nodes.expression.Expression;
+import main.ast.nodes.expression.UnaryExpression;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.compilerMetrics.CompilerMetrics;
+
+public class ConstantFolder extends ExpressionRewriter {
+    private final CompilerMetrics metrics;
+    private final SideEffectChecker sideEffectChecker = new SideEffectChecker();
+
+    public ConstantFolder(CompilerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private Expression folded(Expression original, Expression result) {
+        if(result != original)
+            metrics.increment("constantFolding.foldedNodes");
+        return result;
+    }
+
+    private IntValue makeInt(int constant, Expression original) {
+        IntValue intValue = new IntValue(constant);
+        intValue.setLine(original.getLine());
+        return intValue;
+    }
+
+    private BoolValue makeBool(boolean constant, Expression original) {
+        BoolValue boolValue = new BoolValue(constant);
+        boolValue.setLine(original.getLine());
+        return boolValue;
+    }
+
+    private boolean isInt(Expression expression, int constant) {
+        return expression instanceof IntValue && ((IntValue) expression).getConstant() == constant;
+    }
+
+    private boolean isBool(Expression expression, boolean constant) {
+        return expression instanceof BoolValue && ((BoolValue) expression).getConstant() == constant;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        super.visit(binaryExpression);
+        return folded(binaryExpression, this.fold(binaryExpression));
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        super.visit(unaryExpression);
+        return folded(unaryExpression, this.fold(unaryExpression));
+    }
+
+    private Expression fold(BinaryExpression binaryExpression) {
+        BinaryOperator operator = binaryExpression.getBinaryOperator();
+        Expression op1 = binaryExpression.getFirstOperand();
+        Expression op2 = binaryExpression.getSecondOperand();
+        if(operator == BinaryOperator.assign)
+            return binaryExpression;
+        if(op1 instanceof IntValue && op2 instanceof IntValue) {
+            int c1 = ((IntValue) op1).getConstant();
+            int c2 = ((IntValue) op2).getConstant();
+            switch(operator) {
+                case add: return makeInt(c1 + c2, binaryExpression);
+                case sub: return makeInt(c1 - c2, binaryExpression);
+                case mult: return makeInt(c1 * c2, binaryExpression);
+                case div: return c2 == 0 ? binaryExpression : makeInt(c1 / c2, binaryExpression);
+                case mod: return c2 == 0 ? binaryExpression : makeInt(c1 % c2, binaryExpression);
+                case gt: return makeBool(c1 > c2, binaryExpression);
+                case lt: return makeBool(c1 < c2, binaryExpression);
+                case eq: return makeBool(c1 == c2, binaryExpression);
+                case neq: return makeBool(c1 != c2, binaryExpression);
+                default: return binaryExpression;
+            }
+        }
+        if(op1 instanceof BoolValue && op2 instanceof BoolValue) {
+            boolean c1 = ((BoolValue) op1).getConstant();
+            boolean c2 = ((BoolValue) op2).getConstant();
+            switch(operator) {
+                case and: return makeBool(c1 && c2, binaryExpression);
+                case or: return makeBool(c1 || c2, binaryExpression);
+                case eq: return makeBool(c1 == c2, binaryExpression);
+                case neq: return makeBool(c1 != c2, binaryExpression);
+                default: return binaryExpression;
+            }
+        }
+        switch(operator) {
+            case add:
+                if(isInt(op2, 0))
+                    return op1;
+                if(isInt(op1, 0))
+                    return op2;
+                break;
+            case sub:
+                if(isInt(op2, 0))
+                    return op1;
+                break;
+            case mult:
+                if(isInt(op2, 1))
+                    return op1;
+                if(isInt(op1, 1))
+                    return op2;
+                break;
+            case div:
+                if(isInt(op2, 1))
+                    return op1;
+                break;
+            case and:
+                if(isBool(op2, true))
+                    return op1;
+                if(isBool(op1, true))
+                    return op2;
+                if(isBool(op1, false))
+                    return op1;
+                //op1 runs first, so it is dropped only when it can neither change anything nor fail
+                if(isBool(op2, false) && !sideEffectChecker.hasSideEffect(op1) && !SideEffectChecker.mayFail(op1))
+                    return op2;
+                break;
+            case or:
+                if(isBool(op2, false))
+                    return op1;
+                if(isBool(op1, false))
+                    return op2;
+                if(isBool(op1, true))
+                    return op1;
+                if(isBool(op2, true) && !sideEffectChecker.hasSideEffect(op1) && !SideEffectChecker.mayFail(op1))
+                    return op2;
+                break;
+        }
+        return binaryExpression;
+    }
+
+    private Expression fold(UnaryExpression unaryExpression) {
+        UnaryOperator operator = unaryExpression.getOperator();
+        Expression operand = unaryExpression.getOperand();
+        if(operator == UnaryOperator.minus) {
+            if(operand instanceof IntValue)
+                return makeInt(-((IntValue) operand).getConstant(), unaryExpression);
+            if(operand instanceof UnaryExpression && ((UnaryExpression) operand).getOperator() == UnaryOperator.minus)
+                return ((UnaryExpression) operand).getOperand();
+        }
+        else if(operator == UnaryOperator.not) {
+            if(operand instanceof BoolValue)
+                return makeBool(!((BoolValue) operand).getConstant(), unaryExpression);
+            if(operand instanceof UnaryExpression && ((UnaryExpression) operand).getOperator() == UnaryOperator.not)
+                return ((UnaryExpression) operand).getOperand();
+            if(operand instanceof BinaryExpression) {
+                BinaryExpression comparison = (BinaryExpression) operand;
+                if(comparison.getBinaryOperator() == BinaryOperator.eq || comparison.getBinaryOperator() == BinaryOperator.neq) {
+                    BinaryOperator negated = comparison.getBinaryOperator() == BinaryOperator.eq ? BinaryOperator.neq : BinaryOperator.eq;
+                    BinaryExpression result = new BinaryExpression(comparison.getFirstOperand(), comparison.getSecondOperand(), negated);
+                    result.setLine(comparison.getLine());
+                    return result;
+                }
+            }
+        }
+        return unaryExpression;
+    }
+}
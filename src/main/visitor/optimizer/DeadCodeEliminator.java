@@ -0,0 +1,209 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.compilerMetrics.CompilerMetrics;
+import main.visitor.Visitor;
+import main.visitor.typeChecker.RetConBrk;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+//each statement visit returns the statement that replaces it, null when it is removed
+public class DeadCodeEliminator extends Visitor<Statement> {
+    private final CompilerMetrics metrics;
+    private final SideEffectChecker sideEffectChecker = new SideEffectChecker();
+    private final LocalReadCollector localReadCollector = new LocalReadCollector();
+    private Set<String> deadLocals = new HashSet<>();
+
+    public DeadCodeEliminator(CompilerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void removed() {
+        metrics.increment("deadCode.removedStatements");
+    }
+
+    //same rules as TypeChecker: after a return, break or continue the rest of the block is unreachable
+    private RetConBrk flowOf(Statement statement) {
+        if(statement instanceof ReturnStmt)
+            return new RetConBrk(true, false);
+        if(statement instanceof BreakStmt || statement instanceof ContinueStmt)
+            return new RetConBrk(false, true);
+        if(statement instanceof BlockStmt) {
+            boolean doesReturn = false, doesBreakContinue = false;
+            for(Statement inner : ((BlockStmt) statement).getStatements()) {
+                RetConBrk innerFlow = flowOf(inner);
+                doesReturn = doesReturn || innerFlow.doesReturn;
+                doesBreakContinue = doesBreakContinue || innerFlow.doesBreakContinue;
+            }
+            return new RetConBrk(doesReturn, doesBreakContinue);
+        }
+        if(statement instanceof ConditionalStmt && ((ConditionalStmt) statement).getElseBody() != null) {
+            RetConBrk thenFlow = flowOf(((ConditionalStmt) statement).getThenBody());
+            RetConBrk elseFlow = flowOf(((ConditionalStmt) statement).getElseBody());
+            return new RetConBrk(thenFlow.doesReturn && elseFlow.doesReturn,
+                    thenFlow.doesBreakContinue && elseFlow.doesBreakContinue);
+        }
+        return new RetConBrk(false, false);
+    }
+
+    private ArrayList<Statement> eliminate(ArrayList<Statement> statements) {
+        ArrayList<Statement> result = new ArrayList<>();
+        for(int i = 0; i < statements.size(); i++) {
+            Statement statement = statements.get(i).accept(this);
+            if(statement == null) {
+                removed();
+                continue;
+            }
+            result.add(statement);
+            RetConBrk flow = flowOf(statement);
+            if(flow.doesReturn || flow.doesBreakContinue) {
+                metrics.add("deadCode.removedStatements", statements.size() - i - 1);
+                break;
+            }
+        }
+        return result;
+    }
+
+    private Statement eliminateBody(Statement body) {
+        Statement result = body.accept(this);
+        if(result == null) {
+            BlockStmt emptyBlock = new BlockStmt();
+            emptyBlock.setLine(body.getLine());
+            return emptyBlock;
+        }
+        return result;
+    }
+
+    //the stored value is dropped with the store, so it must neither change anything nor be able to fail
+    private boolean isDeadStore(AssignmentStmt assignmentStmt) {
+        return assignmentStmt.getlValue() instanceof Identifier &&
+                deadLocals.contains(((Identifier) assignmentStmt.getlValue()).getName()) &&
+                !sideEffectChecker.hasSideEffect(assignmentStmt.getrValue()) &&
+                !SideEffectChecker.mayFail(assignmentStmt.getrValue());
+    }
+
+    @Override
+    public Statement visit(Program program) {
+        for(ClassDeclaration classDeclaration : program.getClasses())
+            classDeclaration.accept(this);
+        return null;
+    }
+
+    @Override
+    public Statement visit(ClassDeclaration classDeclaration) {
+        if(classDeclaration.getConstructor() != null)
+            classDeclaration.getConstructor().accept(this);
+        for(MethodDeclaration methodDeclaration : classDeclaration.getMethods())
+            methodDeclaration.accept(this);
+        return null;
+    }
+
+    @Override
+    public Statement visit(ConstructorDeclaration constructorDeclaration) {
+        return this.visit((MethodDeclaration) constructorDeclaration);
+    }
+
+    @Override
+    public Statement visit(MethodDeclaration methodDeclaration) {
+        Set<String> readLocals = localReadCollector.collect(methodDeclaration);
+        deadLocals = new HashSet<>();
+        for(VarDeclaration varDeclaration : methodDeclaration.getLocalVars())
+            if(!readLocals.contains(varDeclaration.getVarName().getName()))
+                deadLocals.add(varDeclaration.getVarName().getName());
+        methodDeclaration.setBody(this.eliminate(methodDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Statement visit(AssignmentStmt assignmentStmt) {
+        if(isDeadStore(assignmentStmt))
+            return null;
+        return assignmentStmt;
+    }
+
+    @Override
+    public Statement visit(BlockStmt blockStmt) {
+        blockStmt.setStatements(this.eliminate(blockStmt.getStatements()));
+        return blockStmt;
+    }
+
+    @Override
+    public Statement visit(ConditionalStmt conditionalStmt) {
+        if(conditionalStmt.getCondition() instanceof BoolValue) {
+            Statement taken = ((BoolValue) conditionalStmt.getCondition()).getConstant() ?
+                    conditionalStmt.getThenBody() : conditionalStmt.getElseBody();
+            if(taken == null)
+                return null;
+            removed();
+            return taken.accept(this);
+        }
+        conditionalStmt.setThenBody(this.eliminateBody(conditionalStmt.getThenBody()));
+        if(conditionalStmt.getElseBody() != null)
+            conditionalStmt.setElseBody(conditionalStmt.getElseBody().accept(this));
+        return conditionalStmt;
+    }
+
+    @Override
+    public Statement visit(MethodCallStmt methodCallStmt) {
+        return methodCallStmt;
+    }
+
+    @Override
+    public Statement visit(PrintStmt print) {
+        return print;
+    }
+
+    @Override
+    public Statement visit(ReturnStmt returnStmt) {
+        return returnStmt;
+    }
+
+    @Override
+    public Statement visit(BreakStmt breakStmt) {
+        return breakStmt;
+    }
+
+    @Override
+    public Statement visit(ContinueStmt continueStmt) {
+        return continueStmt;
+    }
+
+    @Override
+    public Statement visit(ForeachStmt foreachStmt) {
+        foreachStmt.setBody(this.eliminateBody(foreachStmt.getBody()));
+        return foreachStmt;
+    }
+
+    @Override
+    public Statement visit(ForStmt forStmt) {
+        if(forStmt.getInitialize() != null && isDeadStore(forStmt.getInitialize())) {
+            forStmt.setInitialize(null);
+            removed();
+        }
+        if(forStmt.getCondition() instanceof BoolValue && !((BoolValue) forStmt.getCondition()).getConstant()) {
+            if(forStmt.getInitialize() != null)
+                removed();
+            return forStmt.getInitialize();
+        }
+        if(forStmt.getUpdate() != null && isDeadStore(forStmt.getUpdate())) {
+            forStmt.setUpdate(null);
+            removed();
+        }
+        forStmt.setBody(this.eliminateBody(forStmt.getBody()));
+        return forStmt;
+    }
+
+}
@@ -0,0 +1,135 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.statement.AssignmentStmt;
+import main.ast.nodes.statement.PrintStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.list.ListType;
+import main.visitor.typeChecker.ExpressionTypeChecker;
+
+import java.util.HashSet;
+import java.util.Set;
+
+//collects what a piece of code may change and what it reads besides its locals.
+//a member of a list and a member of an object are told apart by the type of the instance,
+//the type checker has to be set to the class and method the code is in
+public class EffectCollector extends ExpressionRewriter {
+    public static class Effects {
+        public final Set<String> writtenLocals = new HashSet<>();
+        public final Set<String> writtenFields = new HashSet<>();
+        public boolean writesLists = false;
+        public final Set<String> readFields = new HashSet<>();
+        public boolean readsLists = false;
+        public boolean prints = false;
+        public boolean creates = false;
+        //calls whose target is not known, and the targets of the others
+        public boolean unresolvedCalls = false;
+        public final Set<MethodDeclaration> callees = new HashSet<>();
+    }
+
+    private final ClassHierarchyAnalysis hierarchyAnalysis;
+    private final ExpressionTypeChecker expressionTypeChecker;
+    private Effects effects;
+
+    public EffectCollector(ClassHierarchyAnalysis hierarchyAnalysis, ExpressionTypeChecker expressionTypeChecker) {
+        this.hierarchyAnalysis = hierarchyAnalysis;
+        this.expressionTypeChecker = expressionTypeChecker;
+    }
+
+    public Effects collect(Node node) {
+        effects = new Effects();
+        node.accept(this);
+        return effects;
+    }
+
+    private void written(Expression lValue) {
+        if(lValue instanceof Identifier)
+            effects.writtenLocals.add(((Identifier) lValue).getName());
+        else if(lValue instanceof ObjectOrListMemberAccess) {
+            ObjectOrListMemberAccess memberAccess = (ObjectOrListMemberAccess) lValue;
+            if(memberAccess.getInstance().accept(expressionTypeChecker) instanceof ListType)
+                effects.writesLists = true;
+            else
+                effects.writtenFields.add(memberAccess.getMemberName().getName());
+            memberAccess.getInstance().accept(this);
+        }
+        else if(lValue instanceof ListAccessByIndex) {
+            effects.writesLists = true;
+            ((ListAccessByIndex) lValue).getInstance().accept(this);
+            ((ListAccessByIndex) lValue).getIndex().accept(this);
+        }
+        else
+            lValue.accept(this);
+    }
+
+    @Override
+    public Expression visit(AssignmentStmt assignmentStmt) {
+        this.written(assignmentStmt.getlValue());
+        assignmentStmt.getrValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(PrintStmt print) {
+        effects.prints = true;
+        return super.visit(print);
+    }
+
+    @Override
+    public Expression visit(ForeachStmt foreachStmt) {
+        effects.writtenLocals.add(foreachStmt.getVariable().getName());
+        return super.visit(foreachStmt);
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        if(binaryExpression.getBinaryOperator() != BinaryOperator.assign)
+            return super.visit(binaryExpression);
+        this.written(binaryExpression.getFirstOperand());
+        binaryExpression.getSecondOperand().accept(this);
+        return binaryExpression;
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        UnaryOperator operator = unaryExpression.getOperator();
+        if(operator != UnaryOperator.not && operator != UnaryOperator.minus)
+            this.written(unaryExpression.getOperand());
+        return super.visit(unaryExpression);
+    }
+
+    @Override
+    public Expression visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        if(objectOrListMemberAccess.getInstance().accept(expressionTypeChecker) instanceof ListType)
+            effects.readsLists = true;
+        else
+            effects.readFields.add(objectOrListMemberAccess.getMemberName().getName());
+        return super.visit(objectOrListMemberAccess);
+    }
+
+    @Override
+    public Expression visit(ListAccessByIndex listAccessByIndex) {
+        effects.readsLists = true;
+        return super.visit(listAccessByIndex);
+    }
+
+    @Override
+    public Expression visit(MethodCall methodCall) {
+        MethodDeclaration target = hierarchyAnalysis.singleTargetOf(methodCall, expressionTypeChecker);
+        if(target == null)
+            effects.unresolvedCalls = true;
+        else
+            effects.callees.add(target);
+        return super.visit(methodCall);
+    }
+
+    @Override
+    public Expression visit(NewClassInstance newClassInstance) {
+        effects.creates = true;
+        return super.visit(newClassInstance);
+    }
+}
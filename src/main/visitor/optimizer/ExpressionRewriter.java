@@ -0,0 +1,214 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.ConstructorDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.visitor.Visitor;
+
+import java.util.ArrayList;
+
+//walks the whole program and replaces every expression with the one its visit returns
+public class ExpressionRewriter extends Visitor<Expression> {
+    protected ClassDeclaration currentClass;
+    protected MethodDeclaration currentMethod;
+
+    protected ArrayList<Expression> rewriteAll(ArrayList<Expression> expressions) {
+        ArrayList<Expression> rewritten = new ArrayList<>();
+        for(Expression expression : expressions)
+            rewritten.add(expression.accept(this));
+        return rewritten;
+    }
+
+    @Override
+    public Expression visit(Program program) {
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            this.currentClass = classDeclaration;
+            classDeclaration.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Expression visit(ClassDeclaration classDeclaration) {
+        if(classDeclaration.getConstructor() != null) {
+            this.currentMethod = classDeclaration.getConstructor();
+            classDeclaration.getConstructor().accept(this);
+        }
+        for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
+            this.currentMethod = methodDeclaration;
+            methodDeclaration.accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Expression visit(ConstructorDeclaration constructorDeclaration) {
+        return this.visit((MethodDeclaration) constructorDeclaration);
+    }
+
+    @Override
+    public Expression visit(MethodDeclaration methodDeclaration) {
+        for(Statement statement : methodDeclaration.getBody())
+            statement.accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(AssignmentStmt assignmentStmt) {
+        assignmentStmt.setlValue(assignmentStmt.getlValue().accept(this));
+        assignmentStmt.setrValue(assignmentStmt.getrValue().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(BlockStmt blockStmt) {
+        for(Statement statement : blockStmt.getStatements())
+            statement.accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setCondition(conditionalStmt.getCondition().accept(this));
+        conditionalStmt.getThenBody().accept(this);
+        if(conditionalStmt.getElseBody() != null)
+            conditionalStmt.getElseBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(MethodCallStmt methodCallStmt) {
+        MethodCall methodCall = methodCallStmt.getMethodCall();
+        methodCall.setInstance(methodCall.getInstance().accept(this));
+        methodCall.setArgs(this.rewriteAll(methodCall.getArgs()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(PrintStmt print) {
+        print.setArg(print.getArg().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ReturnStmt returnStmt) {
+        returnStmt.setReturnedExpr(returnStmt.getReturnedExpr().accept(this));
+        return null;
+    }
+
+    @Override
+    public Expression visit(BreakStmt breakStmt) {
+        return null;
+    }
+
+    @Override
+    public Expression visit(ContinueStmt continueStmt) {
+        return null;
+    }
+
+    @Override
+    public Expression visit(ForeachStmt foreachStmt) {
+        foreachStmt.setList(foreachStmt.getList().accept(this));
+        foreachStmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(ForStmt forStmt) {
+        if(forStmt.getInitialize() != null)
+            forStmt.getInitialize().accept(this);
+        if(forStmt.getCondition() != null)
+            forStmt.setCondition(forStmt.getCondition().accept(this));
+        if(forStmt.getUpdate() != null)
+            forStmt.getUpdate().accept(this);
+        forStmt.getBody().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        binaryExpression.setFirstOperand(binaryExpression.getFirstOperand().accept(this));
+        binaryExpression.setSecondOperand(binaryExpression.getSecondOperand().accept(this));
+        return binaryExpression;
+    }
+
+    @Override
+    public Expression visit(UnaryExpression unaryExpression) {
+        unaryExpression.setOperand(unaryExpression.getOperand().accept(this));
+        return unaryExpression;
+    }
+
+    @Override
+    public Expression visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        objectOrListMemberAccess.setInstance(objectOrListMemberAccess.getInstance().accept(this));
+        return objectOrListMemberAccess;
+    }
+
+    @Override
+    public Expression visit(Identifier identifier) {
+        return identifier;
+    }
+
+    @Override
+    public Expression visit(ListAccessByIndex listAccessByIndex) {
+        listAccessByIndex.setInstance(listAccessByIndex.getInstance().accept(this));
+        listAccessByIndex.setIndex(listAccessByIndex.getIndex().accept(this));
+        return listAccessByIndex;
+    }
+
+    @Override
+    public Expression visit(MethodCall methodCall) {
+        methodCall.setInstance(methodCall.getInstance().accept(this));
+        methodCall.setArgs(this.rewriteAll(methodCall.getArgs()));
+        return methodCall;
+    }
+
+    @Override
+    public Expression visit(NewClassInstance newClassInstance) {
+        newClassInstance.setArgs(this.rewriteAll(newClassInstance.getArgs()));
+        return newClassInstance;
+    }
+
+    @Override
+    public Expression visit(ThisClass thisClass) {
+        return thisClass;
+    }
+
+    @Override
+    public Expression visit(ListValue listValue) {
+        listValue.setElements(this.rewriteAll(listValue.getElements()));
+        return listValue;
+    }
+
+    @Override
+    public Expression visit(NullValue nullValue) {
+        return nullValue;
+    }
+
+    @Override
+    public Expression visit(IntValue intValue) {
+        return intValue;
+    }
+
+    @Override
+    public Expression visit(BoolValue boolValue) {
+        return boolValue;
+    }
+
+    @Override
+    public Expression visit(StringValue stringValue) {
+        return stringValue;
+    }
+}
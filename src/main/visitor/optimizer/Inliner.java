@@ -0,0 +1,457 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.FieldDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.BreakStmt;
+import main.ast.nodes.statement.loop.ContinueStmt;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.Type;
+import main.ast.types.single.ClassType;
+import main.compilerMetrics.CompilerMetrics;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemAlreadyExistsException;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.symbolTable.items.LocalVariableSymbolTableItem;
+import main.symbolTable.items.MethodSymbolTableItem;
+import main.symbolTable.utils.graph.Graph;
+import main.visitor.typeChecker.ExpressionTypeChecker;
+
+import java.util.*;
+
+//replaces calls of small methods that have exactly one target with a copy of the target's body.
+//a method that only returns an expression without side effects is inlined wherever it is called,
+//any other one only where its call is a whole statement or is assigned to a local.
+//there the receiver, the arguments and the callee's locals become new locals of the caller,
+//named with a $ so they can not clash with a sophia identifier
+public class Inliner extends ExpressionRewriter {
+    public static final int MAX_INLINED_NODES = 64;
+    private final ClassHierarchyAnalysis hierarchyAnalysis;
+    private final ExpressionTypeChecker expressionTypeChecker;
+    private final CompilerMetrics metrics;
+    private final SideEffectChecker sideEffectChecker = new SideEffectChecker();
+    private final LocalReadCollector localReadCollector = new LocalReadCollector();
+    private SymbolTable currentMethodSymbolTable;
+    private int inlinedCalls = 0;
+
+    public Inliner(Graph<String> classHierarchy, ClassHierarchyAnalysis hierarchyAnalysis, CompilerMetrics metrics) {
+        this.hierarchyAnalysis = hierarchyAnalysis;
+        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy, metrics);
+        this.metrics = metrics;
+    }
+
+    private MethodDeclaration targetOf(MethodCall methodCall) {
+        MethodDeclaration target = hierarchyAnalysis.singleTargetOf(methodCall, expressionTypeChecker);
+        return target == currentMethod ? null : target;
+    }
+
+    private void inlined() {
+        inlinedCalls++;
+        metrics.increment("inlining.inlinedCalls");
+    }
+
+    @Override
+    public Expression visit(MethodDeclaration methodDeclaration) {
+        expressionTypeChecker.setCurrentClass(currentClass);
+        expressionTypeChecker.setCurrentMethod(currentMethod);
+        try {
+            SymbolTable classSymbolTable = ((ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + currentClass.getClassName().getName(), true)).getClassSymbolTable();
+            currentMethodSymbolTable = ((MethodSymbolTableItem) classSymbolTable.getItem(MethodSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true)).getMethodSymbolTable();
+        } catch (ItemNotFoundException e) {
+            currentMethodSymbolTable = null;
+        }
+        methodDeclaration.setBody(this.inlineAll(methodDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(BlockStmt blockStmt) {
+        blockStmt.setStatements(this.inlineAll(blockStmt.getStatements()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setCondition(conditionalStmt.getCondition().accept(this));
+        conditionalStmt.setThenBody(this.inlineOne(conditionalStmt.getThenBody()));
+        if(conditionalStmt.getElseBody() != null)
+            conditionalStmt.setElseBody(this.inlineOne(conditionalStmt.getElseBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ForeachStmt foreachStmt) {
+        foreachStmt.setList(foreachStmt.getList().accept(this));
+        foreachStmt.setBody(this.inlineOne(foreachStmt.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ForStmt forStmt) {
+        if(forStmt.getInitialize() != null)
+            forStmt.getInitialize().accept(this);
+        if(forStmt.getCondition() != null)
+            forStmt.setCondition(forStmt.getCondition().accept(this));
+        if(forStmt.getUpdate() != null)
+            forStmt.getUpdate().accept(this);
+        forStmt.setBody(this.inlineOne(forStmt.getBody()));
+        return null;
+    }
+
+    private ArrayList<Statement> inlineAll(ArrayList<Statement> statements) {
+        ArrayList<Statement> result = new ArrayList<>();
+        for(Statement statement : statements)
+            result.addAll(this.expand(statement));
+        return result;
+    }
+
+    private Statement inlineOne(Statement statement) {
+        ArrayList<Statement> expanded = this.expand(statement);
+        if(expanded.size() == 1)
+            return expanded.get(0);
+        BlockStmt blockStmt = new BlockStmt(expanded);
+        blockStmt.setLine(statement.getLine());
+        return blockStmt;
+    }
+
+    //calls inside expressions, a method whose body is one return of an expression without side effects.
+    //the arguments are copied into every use of their parameter, so they must not have side effects either,
+    //and one that is not a leaf must not fail, since its parameter may be unused, and is copied only once
+    @Override
+    public Expression visit(MethodCall methodCall) {
+        super.visit(methodCall);
+        MethodDeclaration target = this.targetOf(methodCall);
+        if(target == null || !target.getLocalVars().isEmpty() || target.getBody().size() != 1 ||
+                !(target.getBody().get(0) instanceof ReturnStmt))
+            return methodCall;
+        Expression returned = ((ReturnStmt) target.getBody().get(0)).getReturnedExpr();
+        Expression receiver = ((ObjectOrListMemberAccess) methodCall.getInstance()).getInstance();
+        if(returned instanceof NullValue || sideEffectChecker.hasSideEffect(returned) || sideEffectChecker.hasSideEffect(receiver))
+            return methodCall;
+        //a call through null fails before the body runs, so using this has to be the first thing the body does
+        if(!(receiver instanceof ThisClass) && this.firstEffect(returned) != FirstEffect.THIS_MEMBER)
+            return methodCall;
+        Map<String, Expression> replacements = new HashMap<>();
+        for(int i = 0; i < target.getArgs().size(); i++) {
+            Expression arg = methodCall.getArgs().get(i);
+            if(sideEffectChecker.hasSideEffect(arg) || (!SideEffectChecker.isLeaf(arg) && SideEffectChecker.mayFail(arg)))
+                return methodCall;
+            replacements.put(target.getArgs().get(i).getVarName().getName(), arg);
+        }
+        BodyCopier copier = new BodyCopier(replacements, receiver instanceof ThisClass ? null : receiver, methodCall.getLine());
+        Expression copied = copier.copy(returned);
+        if(copier.getCopiedNodes() > MAX_INLINED_NODES || (!SideEffectChecker.isLeaf(receiver) && copier.getCopiedThis() > 1))
+            return methodCall;
+        for(int i = 0; i < target.getArgs().size(); i++)
+            if(!SideEffectChecker.isLeaf(methodCall.getArgs().get(i)) &&
+                    copier.getReplacedUses(target.getArgs().get(i).getVarName().getName()) > 1)
+                return methodCall;
+        this.inlined();
+        return copied;
+    }
+
+    //calls that are whole statements: the call itself or a local assigned its result
+    private ArrayList<Statement> expand(Statement statement) {
+        statement.accept(this);
+        ArrayList<Statement> unchanged = new ArrayList<>(Collections.singletonList(statement));
+        MethodCall methodCall;
+        Identifier result = null;
+        if(statement instanceof MethodCallStmt)
+            methodCall = ((MethodCallStmt) statement).getMethodCall();
+        else if(statement instanceof AssignmentStmt && ((AssignmentStmt) statement).getlValue() instanceof Identifier &&
+                ((AssignmentStmt) statement).getrValue() instanceof MethodCall) {
+            methodCall = (MethodCall) ((AssignmentStmt) statement).getrValue();
+            result = (Identifier) ((AssignmentStmt) statement).getlValue();
+        }
+        else
+            return unchanged;
+        MethodDeclaration target = this.targetOf(methodCall);
+        if(target == null || currentMethodSymbolTable == null || !this.assignsLocalsBeforeUse(target))
+            return unchanged;
+        //a call through null fails before its body does anything, so unless the body starts by using this
+        //the copy reads a field of the receiver first
+        Expression receiver = ((ObjectOrListMemberAccess) methodCall.getInstance()).getInstance();
+        boolean checkReceiver = !(receiver instanceof ThisClass) && this.firstEffect(target.getBody()) != FirstEffect.THIS_MEMBER;
+        ArrayList<Statement> inlined = this.inlineBody(methodCall, target, result, checkReceiver);
+        return inlined == null ? unchanged : inlined;
+    }
+
+    private ArrayList<Statement> inlineBody(MethodCall methodCall, MethodDeclaration target, Identifier result, boolean checkReceiver) {
+        int line = methodCall.getLine();
+        String prefix = "inline" + inlinedCalls + "$";
+        Expression receiver = ((ObjectOrListMemberAccess) methodCall.getInstance()).getInstance();
+        ArrayList<VarDeclaration> newLocals = new ArrayList<>();
+        ArrayList<Statement> inlined = new ArrayList<>();
+        Expression thisReplacement = null;
+        String className = null;
+        if(!(receiver instanceof ThisClass)) {
+            className = ((ClassType) receiver.accept(expressionTypeChecker)).getClassName().getName();
+            thisReplacement = this.newLocal(prefix + "this", new ClassType(new Identifier(className)), line, newLocals);
+            inlined.add(this.assignment(thisReplacement, receiver, line));
+        }
+        Map<String, Expression> replacements = new HashMap<>();
+        for(int i = 0; i < target.getArgs().size(); i++) {
+            VarDeclaration arg = target.getArgs().get(i);
+            Identifier renamed = this.newLocal(prefix + arg.getVarName().getName(), arg.getType(), line, newLocals);
+            replacements.put(arg.getVarName().getName(), renamed);
+            inlined.add(this.assignment(renamed, methodCall.getArgs().get(i), line));
+        }
+        //like the call, the check comes after the arguments are evaluated
+        if(checkReceiver) {
+            FieldDeclaration field = this.anyFieldOf(className);
+            if(field == null)
+                return null;
+            VarDeclaration checked = field.getVarDeclaration();
+            Identifier receiverUse = new Identifier(prefix + "this");
+            receiverUse.setLine(line);
+            Identifier fieldName = new Identifier(checked.getVarName().getName());
+            fieldName.setLine(line);
+            ObjectOrListMemberAccess fieldAccess = new ObjectOrListMemberAccess(receiverUse, fieldName);
+            fieldAccess.setLine(line);
+            inlined.add(this.assignment(this.newLocal(prefix + "this$check", checked.getType(), line, newLocals), fieldAccess, line));
+        }
+        for(VarDeclaration localVar : target.getLocalVars())
+            replacements.put(localVar.getVarName().getName(),
+                    this.newLocal(prefix + localVar.getVarName().getName(), localVar.getType(), line, newLocals));
+        BodyCopier copier = new BodyCopier(replacements, thisReplacement, line);
+        ArrayList<Statement> body = copier.copyAll(target.getBody());
+        if(copier.getCopiedNodes() > MAX_INLINED_NODES || copier.getCalledMembers().contains(target.getMethodName().getName()))
+            return null;
+        Expression returned = null;
+        if(!body.isEmpty() && body.get(body.size() - 1) instanceof ReturnStmt)
+            returned = ((ReturnStmt) body.remove(body.size() - 1)).getReturnedExpr();
+        if(copier.getCopiedReturns() != (returned == null ? 0 : 1))
+            return null;
+        inlined.addAll(body);
+        if(result != null)
+            inlined.add(this.assignment(result, returned, line));
+        else if(returned instanceof MethodCall) {
+            MethodCallStmt methodCallStmt = new MethodCallStmt((MethodCall) returned);
+            methodCallStmt.setLine(line);
+            inlined.add(methodCallStmt);
+        }
+        else if(returned != null && (sideEffectChecker.hasSideEffect(returned) || SideEffectChecker.mayFail(returned)))
+            return null;
+        for(VarDeclaration newLocal : newLocals) {
+            currentMethod.addLocalVar(newLocal);
+            try {
+                currentMethodSymbolTable.put(new LocalVariableSymbolTableItem(newLocal));
+            } catch (ItemAlreadyExistsException e) { }
+        }
+        this.inlined();
+        return inlined;
+    }
+
+    //what running some code does first that is seen from outside: nothing, use a member of this,
+    //which fails when this is null, or anything else that changes state or may fail
+    private enum FirstEffect { NONE, THIS_MEMBER, OTHER }
+
+    private FirstEffect then(FirstEffect first, FirstEffect next) {
+        return first == FirstEffect.NONE ? next : first;
+    }
+
+    private FirstEffect firstEffect(List<Statement> statements) {
+        for(Statement statement : statements) {
+            FirstEffect effect = this.firstEffect(statement);
+            if(effect != FirstEffect.NONE)
+                return effect;
+        }
+        return FirstEffect.NONE;
+    }
+
+    //statements that may be skipped or repeated count as OTHER
+    private FirstEffect firstEffect(Statement statement) {
+        if(statement instanceof AssignmentStmt)
+            return this.firstEffectOfStore(((AssignmentStmt) statement).getlValue(), ((AssignmentStmt) statement).getrValue());
+        if(statement instanceof MethodCallStmt)
+            return this.firstEffect(((MethodCallStmt) statement).getMethodCall());
+        if(statement instanceof PrintStmt)
+            return this.then(this.firstEffect(((PrintStmt) statement).getArg()), FirstEffect.OTHER);
+        if(statement instanceof ReturnStmt)
+            return this.firstEffect(((ReturnStmt) statement).getReturnedExpr());
+        return FirstEffect.OTHER;
+    }
+
+    //the object or list stored into is evaluated first, then the value, and the store itself comes last
+    private FirstEffect firstEffectOfStore(Expression lValue, Expression rValue) {
+        if(lValue instanceof Identifier)
+            return this.firstEffect(rValue);
+        if(lValue instanceof ObjectOrListMemberAccess) {
+            Expression instance = ((ObjectOrListMemberAccess) lValue).getInstance();
+            return this.then(this.firstEffect(instance), this.then(this.firstEffect(rValue),
+                    instance instanceof ThisClass ? FirstEffect.THIS_MEMBER : FirstEffect.OTHER));
+        }
+        if(lValue instanceof ListAccessByIndex) {
+            ListAccessByIndex listAccessByIndex = (ListAccessByIndex) lValue;
+            return this.then(this.firstEffect(listAccessByIndex.getInstance()), this.then(this.firstEffect(listAccessByIndex.getIndex()),
+                    this.then(this.firstEffect(rValue), FirstEffect.OTHER)));
+        }
+        return FirstEffect.OTHER;
+    }
+
+    //operands are evaluated left to right, the right operand of and and or may be skipped
+    private FirstEffect firstEffect(Expression expression) {
+        if(expression == null || SideEffectChecker.isLeaf(expression))
+            return FirstEffect.NONE;
+        if(expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            Expression op1 = binaryExpression.getFirstOperand();
+            Expression op2 = binaryExpression.getSecondOperand();
+            if(operator == BinaryOperator.assign)
+                return this.firstEffectOfStore(op1, op2);
+            if(operator == BinaryOperator.and || operator == BinaryOperator.or)
+                return this.then(this.firstEffect(op1), this.firstEffect(op2) == FirstEffect.NONE ? FirstEffect.NONE : FirstEffect.OTHER);
+            boolean divides = (operator == BinaryOperator.div || operator == BinaryOperator.mod) &&
+                    !(op2 instanceof IntValue && ((IntValue) op2).getConstant() != 0);
+            return this.then(this.firstEffect(op1), this.then(this.firstEffect(op2), divides ? FirstEffect.OTHER : FirstEffect.NONE));
+        }
+        if(expression instanceof UnaryExpression) {
+            UnaryOperator operator = ((UnaryExpression) expression).getOperator();
+            return this.then(this.firstEffect(((UnaryExpression) expression).getOperand()),
+                    operator == UnaryOperator.not || operator == UnaryOperator.minus ? FirstEffect.NONE : FirstEffect.OTHER);
+        }
+        if(expression instanceof ObjectOrListMemberAccess) {
+            Expression instance = ((ObjectOrListMemberAccess) expression).getInstance();
+            return instance instanceof ThisClass ? FirstEffect.THIS_MEMBER : this.then(this.firstEffect(instance), FirstEffect.OTHER);
+        }
+        if(expression instanceof ListAccessByIndex)
+            return this.then(this.firstEffect(((ListAccessByIndex) expression).getInstance()),
+                    this.then(this.firstEffect(((ListAccessByIndex) expression).getIndex()), FirstEffect.OTHER));
+        if(expression instanceof MethodCall) {
+            //a method of this is looked up only after the arguments are evaluated
+            MethodCall methodCall = (MethodCall) expression;
+            Expression instance = methodCall.getInstance();
+            boolean ofThis = instance instanceof ObjectOrListMemberAccess && ((ObjectOrListMemberAccess) instance).getInstance() instanceof ThisClass;
+            FirstEffect effect = ofThis ? FirstEffect.NONE : this.firstEffect(instance);
+            for(Expression arg : methodCall.getArgs())
+                effect = this.then(effect, this.firstEffect(arg));
+            return this.then(effect, ofThis ? FirstEffect.THIS_MEMBER : FirstEffect.OTHER);
+        }
+        if(expression instanceof ListValue) {
+            FirstEffect effect = FirstEffect.NONE;
+            for(Expression element : ((ListValue) expression).getElements())
+                effect = this.then(effect, this.firstEffect(element));
+            return effect;
+        }
+        return FirstEffect.OTHER;
+    }
+
+    //the first field of the class or of one of its parents, null when none of them has one
+    private FieldDeclaration anyFieldOf(String className) {
+        try {
+            while(className != null) {
+                ClassDeclaration classDeclaration = ((ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + className, true)).getClassDeclaration();
+                if(!classDeclaration.getFields().isEmpty())
+                    return classDeclaration.getFields().get(0);
+                className = classDeclaration.getParentClassName() == null ? null : classDeclaration.getParentClassName().getName();
+            }
+        } catch (ItemNotFoundException e) { }
+        return null;
+    }
+
+    private Identifier newLocal(String name, Type type, int line, ArrayList<VarDeclaration> newLocals) {
+        Identifier varName = new Identifier(name);
+        varName.setLine(line);
+        VarDeclaration varDeclaration = new VarDeclaration(varName, type);
+        varDeclaration.setLine(line);
+        newLocals.add(varDeclaration);
+        Identifier use = new Identifier(name);
+        use.setLine(line);
+        return use;
+    }
+
+    private AssignmentStmt assignment(Expression lValue, Expression rValue, int line) {
+        AssignmentStmt assignmentStmt = new AssignmentStmt(lValue, rValue);
+        assignmentStmt.setLine(line);
+        return assignmentStmt;
+    }
+
+    //a copy of the body runs with the locals it finds, not with fresh default values like a call would,
+    //so every local has to be written on each path before it is read
+    private boolean assignsLocalsBeforeUse(MethodDeclaration target) {
+        Set<String> locals = new HashSet<>();
+        for(VarDeclaration localVar : target.getLocalVars())
+            locals.add(localVar.getVarName().getName());
+        return this.assignsBeforeUse(target.getBody(), locals, new HashSet<>());
+    }
+
+    private boolean readsAssigned(Expression expression, Set<String> locals, Set<String> assigned) {
+        for(String read : localReadCollector.collect(expression))
+            if(locals.contains(read) && !assigned.contains(read))
+                return false;
+        return true;
+    }
+
+    private boolean assignsBeforeUse(List<Statement> statements, Set<String> locals, Set<String> assigned) {
+        for(Statement statement : statements)
+            if(!this.assignsBeforeUse(statement, locals, assigned))
+                return false;
+        return true;
+    }
+
+    private boolean assignsBeforeUse(Statement statement, Set<String> locals, Set<String> assigned) {
+        if(statement instanceof AssignmentStmt) {
+            AssignmentStmt assignmentStmt = (AssignmentStmt) statement;
+            if(!this.readsAssigned(assignmentStmt.getrValue(), locals, assigned))
+                return false;
+            if(assignmentStmt.getlValue() instanceof Identifier) {
+                assigned.add(((Identifier) assignmentStmt.getlValue()).getName());
+                return true;
+            }
+            return this.readsAssigned(assignmentStmt.getlValue(), locals, assigned);
+        }
+        if(statement instanceof BlockStmt)
+            return this.assignsBeforeUse(((BlockStmt) statement).getStatements(), locals, assigned);
+        if(statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            if(!this.readsAssigned(conditionalStmt.getCondition(), locals, assigned))
+                return false;
+            Set<String> thenAssigned = new HashSet<>(assigned);
+            if(!this.assignsBeforeUse(conditionalStmt.getThenBody(), locals, thenAssigned))
+                return false;
+            if(conditionalStmt.getElseBody() == null)
+                return true;
+            Set<String> elseAssigned = new HashSet<>(assigned);
+            if(!this.assignsBeforeUse(conditionalStmt.getElseBody(), locals, elseAssigned))
+                return false;
+            thenAssigned.retainAll(elseAssigned);
+            assigned.addAll(thenAssigned);
+            return true;
+        }
+        if(statement instanceof ForeachStmt) {
+            ForeachStmt foreachStmt = (ForeachStmt) statement;
+            Set<String> bodyAssigned = new HashSet<>(assigned);
+            bodyAssigned.add(foreachStmt.getVariable().getName());
+            return this.readsAssigned(foreachStmt.getList(), locals, assigned) &&
+                    this.assignsBeforeUse(foreachStmt.getBody(), locals, bodyAssigned);
+        }
+        if(statement instanceof ForStmt) {
+            ForStmt forStmt = (ForStmt) statement;
+            if(forStmt.getInitialize() != null && !this.assignsBeforeUse(forStmt.getInitialize(), locals, assigned))
+                return false;
+            if(forStmt.getCondition() != null && !this.readsAssigned(forStmt.getCondition(), locals, assigned))
+                return false;
+            //a continue can skip the rest of the body, so the update only sees what was written before the loop
+            return this.assignsBeforeUse(forStmt.getBody(), locals, new HashSet<>(assigned)) &&
+                    (forStmt.getUpdate() == null || this.assignsBeforeUse(forStmt.getUpdate(), locals, new HashSet<>(assigned)));
+        }
+        if(statement instanceof MethodCallStmt)
+            return this.readsAssigned(((MethodCallStmt) statement).getMethodCall(), locals, assigned);
+        if(statement instanceof PrintStmt)
+            return this.readsAssigned(((PrintStmt) statement).getArg(), locals, assigned);
+        if(statement instanceof ReturnStmt)
+            return this.readsAssigned(((ReturnStmt) statement).getReturnedExpr(), locals, assigned);
+        return statement instanceof BreakStmt || statement instanceof ContinueStmt;
+    }
+}
@@ -0,0 +1,50 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.expression.BinaryExpression;
+import main.ast.nodes.expression.Expression;
+import main.ast.nodes.expression.Identifier;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.statement.AssignmentStmt;
+
+import java.util.HashSet;
+import java.util.Set;
+
+//collects the names of the locals a method reads; an identifier that is only assigned to is not a read
+public class LocalReadCollector extends ExpressionRewriter {
+    private final Set<String> readLocals = new HashSet<>();
+
+    public Set<String> collect(MethodDeclaration methodDeclaration) {
+        readLocals.clear();
+        methodDeclaration.accept(this);
+        return new HashSet<>(readLocals);
+    }
+
+    public Set<String> collect(Expression expression) {
+        readLocals.clear();
+        expression.accept(this);
+        return new HashSet<>(readLocals);
+    }
+
+    @Override
+    public Expression visit(AssignmentStmt assignmentStmt) {
+        if(!(assignmentStmt.getlValue() instanceof Identifier))
+            assignmentStmt.getlValue().accept(this);
+        assignmentStmt.getrValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Expression visit(BinaryExpression binaryExpression) {
+        if(binaryExpression.getBinaryOperator() != BinaryOperator.assign || !(binaryExpression.getFirstOperand() instanceof Identifier))
+            binaryExpression.getFirstOperand().accept(this);
+        binaryExpression.getSecondOperand().accept(this);
+        return binaryExpression;
+    }
+
+    @Override
+    public Expression visit(Identifier identifier) {
+        readLocals.add(identifier.getName());
+        return identifier;
+    }
+}
@@ -0,0 +1,410 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.ast.nodes.declaration.variableDec.VarDeclaration;
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.ast.nodes.statement.*;
+import main.ast.nodes.statement.loop.ForStmt;
+import main.ast.nodes.statement.loop.ForeachStmt;
+import main.ast.types.Type;
+import main.ast.types.list.ListType;
+import main.ast.types.single.BoolType;
+import main.ast.types.single.ClassType;
+import main.ast.types.single.IntType;
+import main.ast.types.single.StringType;
+import main.compilerMetrics.CompilerMetrics;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemAlreadyExistsException;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.symbolTable.items.LocalVariableSymbolTableItem;
+import main.symbolTable.items.MethodSymbolTableItem;
+import main.symbolTable.utils.graph.Graph;
+import main.visitor.optimizer.EffectCollector.Effects;
+import main.visitor.typeChecker.ExpressionTypeChecker;
+
+import java.util.*;
+
+//moves expressions that have the same value in every iteration of a for or foreach loop into new locals assigned
+//right before the loop. nothing in the loop may write what such an expression reads: its locals, the members it
+//reads, any list when it reads a list, and anything at all when the loop creates an object or makes a call
+//that is not pure. an expression that can fail is only moved when the loop surely evaluates it before
+//anything visible happens, so a program does not fail where it did not before
+public class LoopInvariantHoister extends ExpressionRewriter {
+    private final Graph<String> classHierarchy;
+    private final ClassHierarchyAnalysis hierarchyAnalysis;
+    private final ExpressionTypeChecker expressionTypeChecker;
+    private final EffectCollector effectCollector;
+    private final SideEffectChecker sideEffectChecker = new SideEffectChecker();
+    private final CompilerMetrics metrics;
+    private MethodPurityAnalysis purityAnalysis;
+    private SymbolTable currentMethodSymbolTable;
+    private int hoistedExpressions = 0;
+
+    public LoopInvariantHoister(Graph<String> classHierarchy, ClassHierarchyAnalysis hierarchyAnalysis, CompilerMetrics metrics) {
+        this.classHierarchy = classHierarchy;
+        this.hierarchyAnalysis = hierarchyAnalysis;
+        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy, metrics);
+        this.effectCollector = new EffectCollector(hierarchyAnalysis, expressionTypeChecker);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Expression visit(Program program) {
+        purityAnalysis = new MethodPurityAnalysis(program, classHierarchy, hierarchyAnalysis, metrics);
+        return super.visit(program);
+    }
+
+    @Override
+    public Expression visit(MethodDeclaration methodDeclaration) {
+        expressionTypeChecker.setCurrentClass(currentClass);
+        expressionTypeChecker.setCurrentMethod(currentMethod);
+        try {
+            SymbolTable classSymbolTable = ((ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + currentClass.getClassName().getName(), true)).getClassSymbolTable();
+            currentMethodSymbolTable = ((MethodSymbolTableItem) classSymbolTable.getItem(MethodSymbolTableItem.START_KEY + methodDeclaration.getMethodName().getName(), true)).getMethodSymbolTable();
+        } catch (ItemNotFoundException e) {
+            return null;
+        }
+        methodDeclaration.setBody(this.hoistAll(methodDeclaration.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(BlockStmt blockStmt) {
+        blockStmt.setStatements(this.hoistAll(blockStmt.getStatements()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ConditionalStmt conditionalStmt) {
+        conditionalStmt.setThenBody(this.hoistOne(conditionalStmt.getThenBody()));
+        if(conditionalStmt.getElseBody() != null)
+            conditionalStmt.setElseBody(this.hoistOne(conditionalStmt.getElseBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ForeachStmt foreachStmt) {
+        foreachStmt.setBody(this.hoistOne(foreachStmt.getBody()));
+        return null;
+    }
+
+    @Override
+    public Expression visit(ForStmt forStmt) {
+        forStmt.setBody(this.hoistOne(forStmt.getBody()));
+        return null;
+    }
+
+    //inner loops go first, what they hoist is then part of the outer loop's body
+    private ArrayList<Statement> hoistAll(ArrayList<Statement> statements) {
+        ArrayList<Statement> result = new ArrayList<>();
+        for(Statement statement : statements) {
+            statement.accept(this);
+            if(statement instanceof ForStmt || statement instanceof ForeachStmt)
+                result.addAll(this.hoistFrom(statement));
+            result.add(statement);
+        }
+        return result;
+    }
+
+    private Statement hoistOne(Statement statement) {
+        ArrayList<Statement> hoisted = this.hoistAll(new ArrayList<>(Collections.singletonList(statement)));
+        if(hoisted.size() == 1)
+            return hoisted.get(0);
+        BlockStmt blockStmt = new BlockStmt(hoisted);
+        blockStmt.setLine(statement.getLine());
+        return blockStmt;
+    }
+
+    //returns the assignments of the new locals
+    private ArrayList<Statement> hoistFrom(Statement loop) {
+        Effects loopEffects = effectCollector.collect(loop);
+        boolean writesAnything = loopEffects.creates || loopEffects.unresolvedCalls;
+        for(MethodDeclaration callee : loopEffects.callees)
+            writesAnything |= !purityAnalysis.isPure(callee);
+        InvariantReplacer replacer = new InvariantReplacer(loopEffects, writesAnything);
+        if(loop instanceof ForeachStmt) {
+            ForeachStmt foreachStmt = (ForeachStmt) loop;
+            Type listType = foreachStmt.getList().accept(expressionTypeChecker);
+            boolean runsOnce = listType instanceof ListType && ((ListType) listType).getSize() > 0;
+            this.replaceIn(foreachStmt.getBody(), replacer, runsOnce);
+        }
+        else {
+            ForStmt forStmt = (ForStmt) loop;
+            //the condition is evaluated right after the initialization, even when the body never runs
+            AssignmentStmt initialize = forStmt.getInitialize();
+            boolean quietInitialize = initialize == null ||
+                    (initialize.getlValue() instanceof Identifier && !sideEffectChecker.hasSideEffect(initialize.getrValue()));
+            if(forStmt.getCondition() != null) {
+                replacer.anticipated = quietInitialize;
+                forStmt.setCondition(forStmt.getCondition().accept(replacer));
+            }
+            this.replaceIn(forStmt.getBody(), replacer, quietInitialize && this.runsOnce(forStmt));
+            if(forStmt.getUpdate() != null) {
+                replacer.anticipated = false;
+                forStmt.getUpdate().accept(replacer);
+            }
+        }
+        return replacer.assignments;
+    }
+
+    //for (i = a; i < b; ...) with constants a and b, or without a condition
+    private boolean runsOnce(ForStmt forStmt) {
+        if(forStmt.getCondition() == null)
+            return true;
+        if(forStmt.getInitialize() == null || !(forStmt.getInitialize().getlValue() instanceof Identifier) ||
+                !(forStmt.getInitialize().getrValue() instanceof IntValue) || !(forStmt.getCondition() instanceof BinaryExpression))
+            return false;
+        BinaryExpression condition = (BinaryExpression) forStmt.getCondition();
+        if(!(condition.getFirstOperand() instanceof Identifier) || !(condition.getSecondOperand() instanceof IntValue) ||
+                !((Identifier) condition.getFirstOperand()).getName().equals(((Identifier) forStmt.getInitialize().getlValue()).getName()))
+            return false;
+        int first = ((IntValue) forStmt.getInitialize().getrValue()).getConstant();
+        int bound = ((IntValue) condition.getSecondOperand()).getConstant();
+        switch(condition.getBinaryOperator()) {
+            case lt: return first < bound;
+            case gt: return first > bound;
+            case eq: return first == bound;
+            case neq: return first != bound;
+            default: return false;
+        }
+    }
+
+    //an expression is anticipated when it is evaluated each time the loop is entered, before anything visible happens.
+    //returns whether that still holds for the statements after this one
+    private boolean replaceIn(Statement statement, InvariantReplacer replacer, boolean anticipated) {
+        replacer.anticipated = anticipated;
+        if(!anticipated) {
+            statement.accept(replacer);
+            return false;
+        }
+        if(statement instanceof BlockStmt) {
+            boolean stillAnticipated = true;
+            for(Statement inner : ((BlockStmt) statement).getStatements())
+                stillAnticipated = this.replaceIn(inner, replacer, stillAnticipated);
+            return stillAnticipated;
+        }
+        if(statement instanceof ConditionalStmt) {
+            ConditionalStmt conditionalStmt = (ConditionalStmt) statement;
+            conditionalStmt.setCondition(conditionalStmt.getCondition().accept(replacer));
+            replacer.anticipated = false;
+            conditionalStmt.getThenBody().accept(replacer);
+            if(conditionalStmt.getElseBody() != null)
+                conditionalStmt.getElseBody().accept(replacer);
+            return false;
+        }
+        if(statement instanceof ForeachStmt) {
+            ForeachStmt foreachStmt = (ForeachStmt) statement;
+            foreachStmt.setList(foreachStmt.getList().accept(replacer));
+            replacer.anticipated = false;
+            foreachStmt.getBody().accept(replacer);
+            return false;
+        }
+        if(statement instanceof ForStmt) {
+            ForStmt forStmt = (ForStmt) statement;
+            if(forStmt.getInitialize() != null)
+                forStmt.getInitialize().accept(replacer);
+            if(forStmt.getCondition() != null)
+                forStmt.setCondition(forStmt.getCondition().accept(replacer));
+            replacer.anticipated = false;
+            forStmt.getBody().accept(replacer);
+            if(forStmt.getUpdate() != null)
+                forStmt.getUpdate().accept(replacer);
+            return false;
+        }
+        statement.accept(replacer);
+        return statement instanceof AssignmentStmt && ((AssignmentStmt) statement).getlValue() instanceof Identifier &&
+                !sideEffectChecker.hasSideEffect(((AssignmentStmt) statement).getrValue());
+    }
+
+    //equal keys for expressions that are written the same
+    private static String keyOf(Expression expression) {
+        if(expression instanceof Identifier)
+            return ((Identifier) expression).getName();
+        if(expression instanceof ThisClass)
+            return "this";
+        if(expression instanceof IntValue)
+            return "int " + ((IntValue) expression).getConstant();
+        if(expression instanceof BoolValue)
+            return "bool " + ((BoolValue) expression).getConstant();
+        if(expression instanceof StringValue)
+            return "string " + ((StringValue) expression).getConstant().length() + " " + ((StringValue) expression).getConstant();
+        if(expression instanceof NullValue)
+            return "null";
+        if(expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            return "(" + binaryExpression.getBinaryOperator() + " " + keyOf(binaryExpression.getFirstOperand()) + " " +
+                    keyOf(binaryExpression.getSecondOperand()) + ")";
+        }
+        if(expression instanceof UnaryExpression)
+            return "(" + ((UnaryExpression) expression).getOperator() + " " + keyOf(((UnaryExpression) expression).getOperand()) + ")";
+        if(expression instanceof ObjectOrListMemberAccess)
+            return "(. " + keyOf(((ObjectOrListMemberAccess) expression).getInstance()) + " " +
+                    ((ObjectOrListMemberAccess) expression).getMemberName().getName() + ")";
+        if(expression instanceof ListAccessByIndex)
+            return "([] " + keyOf(((ListAccessByIndex) expression).getInstance()) + " " +
+                    keyOf(((ListAccessByIndex) expression).getIndex()) + ")";
+        if(expression instanceof MethodCall) {
+            StringBuilder key = new StringBuilder("(call ").append(keyOf(((MethodCall) expression).getInstance()));
+            for(Expression arg : ((MethodCall) expression).getArgs())
+                key.append(' ').append(keyOf(arg));
+            return key.append(')').toString();
+        }
+        return null;
+    }
+
+    //replaces the invariant expressions of one loop, the largest ones first
+    private class InvariantReplacer extends ExpressionRewriter {
+        private final Effects loopEffects;
+        private final boolean writesAnything;
+        private boolean anticipated = false;
+        private final Map<String, Identifier> temps = new HashMap<>();
+        private final ArrayList<Statement> assignments = new ArrayList<>();
+
+        private InvariantReplacer(Effects loopEffects, boolean writesAnything) {
+            this.loopEffects = loopEffects;
+            this.writesAnything = writesAnything;
+        }
+
+        private boolean isInvariant(Expression expression) {
+            if(expression instanceof Identifier)
+                return !loopEffects.writtenLocals.contains(((Identifier) expression).getName());
+            if(SideEffectChecker.isLeaf(expression))
+                return true;
+            if(expression instanceof BinaryExpression) {
+                BinaryExpression binaryExpression = (BinaryExpression) expression;
+                return binaryExpression.getBinaryOperator() != BinaryOperator.assign &&
+                        this.isInvariant(binaryExpression.getFirstOperand()) && this.isInvariant(binaryExpression.getSecondOperand());
+            }
+            if(expression instanceof UnaryExpression) {
+                UnaryOperator operator = ((UnaryExpression) expression).getOperator();
+                return (operator == UnaryOperator.not || operator == UnaryOperator.minus) &&
+                        this.isInvariant(((UnaryExpression) expression).getOperand());
+            }
+            if(writesAnything)
+                return false;
+            if(expression instanceof ObjectOrListMemberAccess) {
+                ObjectOrListMemberAccess memberAccess = (ObjectOrListMemberAccess) expression;
+                if(!this.isInvariant(memberAccess.getInstance()))
+                    return false;
+                Type instanceType = memberAccess.getInstance().accept(expressionTypeChecker);
+                if(instanceType instanceof ListType)
+                    return !loopEffects.writesLists;
+                return instanceType instanceof ClassType && !loopEffects.writtenFields.contains(memberAccess.getMemberName().getName());
+            }
+            if(expression instanceof ListAccessByIndex) {
+                ListAccessByIndex listAccessByIndex = (ListAccessByIndex) expression;
+                return !loopEffects.writesLists && this.isInvariant(listAccessByIndex.getInstance()) &&
+                        this.isInvariant(listAccessByIndex.getIndex());
+            }
+            if(expression instanceof MethodCall) {
+                MethodCall methodCall = (MethodCall) expression;
+                MethodDeclaration target = hierarchyAnalysis.singleTargetOf(methodCall, expressionTypeChecker);
+                if(target == null || !purityAnalysis.isPure(target))
+                    return false;
+                Effects calleeEffects = purityAnalysis.effectsOf(target);
+                if((calleeEffects.readsLists && loopEffects.writesLists) ||
+                        !Collections.disjoint(calleeEffects.readFields, loopEffects.writtenFields))
+                    return false;
+                if(!this.isInvariant(((ObjectOrListMemberAccess) methodCall.getInstance()).getInstance()))
+                    return false;
+                for(Expression arg : methodCall.getArgs())
+                    if(!this.isInvariant(arg))
+                        return false;
+                return true;
+            }
+            return false;
+        }
+
+        //lists are copied when they are assigned, and a temporary for a method is not worth it
+        private boolean isHoistableType(Type type) {
+            return type instanceof IntType || type instanceof BoolType || type instanceof StringType || type instanceof ClassType;
+        }
+
+        private Expression replaced(Expression expression) {
+            if(SideEffectChecker.isLeaf(expression) || !this.isInvariant(expression))
+                return null;
+            String key = keyOf(expression);
+            Identifier temp = temps.get(key);
+            if(temp == null) {
+                if(!anticipated && SideEffectChecker.mayFail(expression))
+                    return null;
+                Type type = expression.accept(expressionTypeChecker);
+                if(!this.isHoistableType(type))
+                    return null;
+                temp = this.newTemp(type, expression);
+                temps.put(key, temp);
+            }
+            Identifier use = new Identifier(temp.getName());
+            use.setLine(expression.getLine());
+            return use;
+        }
+
+        private Identifier newTemp(Type type, Expression expression) {
+            String name = "invariant" + hoistedExpressions++ + "$";
+            Identifier varName = new Identifier(name);
+            varName.setLine(expression.getLine());
+            VarDeclaration varDeclaration = new VarDeclaration(varName, type);
+            varDeclaration.setLine(expression.getLine());
+            LoopInvariantHoister.this.currentMethod.addLocalVar(varDeclaration);
+            try {
+                currentMethodSymbolTable.put(new LocalVariableSymbolTableItem(varDeclaration));
+            } catch (ItemAlreadyExistsException e) { }
+            Identifier lValue = new Identifier(name);
+            lValue.setLine(expression.getLine());
+            AssignmentStmt assignmentStmt = new AssignmentStmt(lValue, expression);
+            assignmentStmt.setLine(expression.getLine());
+            assignments.add(assignmentStmt);
+            metrics.increment("loopInvariants.hoistedExpressions");
+            return varName;
+        }
+
+        @Override
+        public Expression visit(BinaryExpression binaryExpression) {
+            Expression replaced = this.replaced(binaryExpression);
+            if(replaced != null)
+                return replaced;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            if(operator != BinaryOperator.and && operator != BinaryOperator.or)
+                return super.visit(binaryExpression);
+            //the second operand is not always evaluated
+            binaryExpression.setFirstOperand(binaryExpression.getFirstOperand().accept(this));
+            boolean wasAnticipated = anticipated;
+            anticipated = false;
+            binaryExpression.setSecondOperand(binaryExpression.getSecondOperand().accept(this));
+            anticipated = wasAnticipated;
+            return binaryExpression;
+        }
+
+        @Override
+        public Expression visit(UnaryExpression unaryExpression) {
+            Expression replaced = this.replaced(unaryExpression);
+            return replaced != null ? replaced : super.visit(unaryExpression);
+        }
+
+        @Override
+        public Expression visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+            Expression replaced = this.replaced(objectOrListMemberAccess);
+            return replaced != null ? replaced : super.visit(objectOrListMemberAccess);
+        }
+
+        @Override
+        public Expression visit(ListAccessByIndex listAccessByIndex) {
+            Expression replaced = this.replaced(listAccessByIndex);
+            return replaced != null ? replaced : super.visit(listAccessByIndex);
+        }
+
+        @Override
+        public Expression visit(MethodCall methodCall) {
+            Expression replaced = this.replaced(methodCall);
+            return replaced != null ? replaced : super.visit(methodCall);
+        }
+    }
+}
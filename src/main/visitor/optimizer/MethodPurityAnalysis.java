@@ -0,0 +1,73 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.ast.nodes.declaration.classDec.classMembersDec.MethodDeclaration;
+import main.compilerMetrics.CompilerMetrics;
+import main.symbolTable.utils.graph.Graph;
+import main.visitor.optimizer.EffectCollector.Effects;
+import main.visitor.typeChecker.ExpressionTypeChecker;
+
+import java.util.*;
+
+//a method is pure when a call of it changes nothing its caller can see: it does not print, create objects
+//or write members or lists, and every call in it has a single target that is pure too.
+//methods calling each other stay pure if nothing else makes them impure, and what a pure method reads
+//includes what its callees read
+public class MethodPurityAnalysis {
+    private final Map<MethodDeclaration, Effects> effects = new HashMap<>();
+    private final Set<MethodDeclaration> pureMethods = new HashSet<>();
+
+    public MethodPurityAnalysis(Program program, Graph<String> classHierarchy, ClassHierarchyAnalysis hierarchyAnalysis,
+                                CompilerMetrics metrics) {
+        ExpressionTypeChecker expressionTypeChecker = new ExpressionTypeChecker(classHierarchy, metrics);
+        EffectCollector effectCollector = new EffectCollector(hierarchyAnalysis, expressionTypeChecker);
+        for(ClassDeclaration classDeclaration : program.getClasses()) {
+            expressionTypeChecker.setCurrentClass(classDeclaration);
+            for(MethodDeclaration methodDeclaration : classDeclaration.getMethods()) {
+                expressionTypeChecker.setCurrentMethod(methodDeclaration);
+                Effects methodEffects = effectCollector.collect(methodDeclaration);
+                effects.put(methodDeclaration, methodEffects);
+                if(!methodEffects.prints && !methodEffects.creates && !methodEffects.unresolvedCalls &&
+                        !methodEffects.writesLists && methodEffects.writtenFields.isEmpty())
+                    pureMethods.add(methodDeclaration);
+            }
+        }
+        boolean changed = true;
+        while(changed) {
+            changed = false;
+            for(MethodDeclaration method : new ArrayList<>(pureMethods))
+                for(MethodDeclaration callee : effects.get(method).callees)
+                    if(!pureMethods.contains(callee)) {
+                        pureMethods.remove(method);
+                        changed = true;
+                        break;
+                    }
+        }
+        changed = true;
+        while(changed) {
+            changed = false;
+            for(MethodDeclaration method : pureMethods) {
+                Effects methodEffects = effects.get(method);
+                for(MethodDeclaration callee : methodEffects.callees) {
+                    Effects calleeEffects = effects.get(callee);
+                    changed |= methodEffects.readFields.addAll(calleeEffects.readFields);
+                    if(calleeEffects.readsLists && !methodEffects.readsLists) {
+                        methodEffects.readsLists = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        metrics.add("purity.pureMethods", pureMethods.size());
+    }
+
+    public boolean isPure(MethodDeclaration methodDeclaration) {
+        return pureMethods.contains(methodDeclaration);
+    }
+
+    //for a pure method the reads include those of its callees
+    public Effects effectsOf(MethodDeclaration methodDeclaration) {
+        return effects.get(methodDeclaration);
+    }
+}
@@ -0,0 +1,115 @@
+package main.visitor.optimizer;
+
+import main.ast.nodes.expression.*;
+import main.ast.nodes.expression.operators.BinaryOperator;
+import main.ast.nodes.expression.operators.UnaryOperator;
+import main.ast.nodes.expression.values.ListValue;
+import main.ast.nodes.expression.values.NullValue;
+import main.ast.nodes.expression.values.primitive.BoolValue;
+import main.ast.nodes.expression.values.primitive.IntValue;
+import main.ast.nodes.expression.values.primitive.StringValue;
+import main.visitor.Visitor;
+
+//true when evaluating the expression may change state, so it can not be dropped or reordered
+public class SideEffectChecker extends Visitor<Boolean> {
+
+    public boolean hasSideEffect(Expression expression) {
+        return expression.accept(this);
+    }
+
+    public static boolean isLeaf(Expression expression) {
+        return expression instanceof Identifier || expression instanceof ThisClass || expression instanceof IntValue ||
+                expression instanceof BoolValue || expression instanceof StringValue || expression instanceof NullValue;
+    }
+
+    //whether evaluating it can throw: through an object that may be null, out of a list's bounds,
+    //dividing by zero or inside a call
+    public static boolean mayFail(Expression expression) {
+        if(expression instanceof BinaryExpression) {
+            BinaryExpression binaryExpression = (BinaryExpression) expression;
+            BinaryOperator operator = binaryExpression.getBinaryOperator();
+            if((operator == BinaryOperator.div || operator == BinaryOperator.mod) &&
+                    !(binaryExpression.getSecondOperand() instanceof IntValue && ((IntValue) binaryExpression.getSecondOperand()).getConstant() != 0))
+                return true;
+            return mayFail(binaryExpression.getFirstOperand()) || mayFail(binaryExpression.getSecondOperand());
+        }
+        if(expression instanceof UnaryExpression)
+            return mayFail(((UnaryExpression) expression).getOperand());
+        if(expression instanceof ObjectOrListMemberAccess)
+            return !(((ObjectOrListMemberAccess) expression).getInstance() instanceof ThisClass);
+        return expression instanceof ListAccessByIndex || expression instanceof MethodCall;
+    }
+
+    @Override
+    public Boolean visit(BinaryExpression binaryExpression) {
+        if(binaryExpression.getBinaryOperator() == BinaryOperator.assign)
+            return true;
+        return binaryExpression.getFirstOperand().accept(this) || binaryExpression.getSecondOperand().accept(this);
+    }
+
+    @Override
+    public Boolean visit(UnaryExpression unaryExpression) {
+        UnaryOperator operator = unaryExpression.getOperator();
+        if(operator != UnaryOperator.not && operator != UnaryOperator.minus)
+            return true;
+        return unaryExpression.getOperand().accept(this);
+    }
+
+    @Override
+    public Boolean visit(ObjectOrListMemberAccess objectOrListMemberAccess) {
+        return objectOrListMemberAccess.getInstance().accept(this);
+    }
+
+    @Override
+    public Boolean visit(Identifier identifier) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(ListAccessByIndex listAccessByIndex) {
+        return listAccessByIndex.getInstance().accept(this) || listAccessByIndex.getIndex().accept(this);
+    }
+
+    @Override
+    public Boolean visit(MethodCall methodCall) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(NewClassInstance newClassInstance) {
+        return true;
+    }
+
+    @Override
+    public Boolean visit(ThisClass thisClass) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(ListValue listValue) {
+        for(Expression element : listValue.getElements())
+            if(element.accept(this))
+                return true;
+        return false;
+    }
+
+    @Override
+    public Boolean visit(NullValue nullValue) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(IntValue intValue) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(BoolValue boolValue) {
+        return false;
+    }
+
+    @Override
+    public Boolean visit(StringValue stringValue) {
+        return false;
+    }
+}
@@ -14,6 +14,7 @@ import main.ast.nodes.expression.values.primitive.StringValue;
 import main.ast.types.NoType;
 import main.ast.types.NullType;
 import main.ast.types.Type;
+import main.ast.types.TypeFactory;
 import main.ast.types.functionPointer.FptrType;
 import main.ast.types.list.ListNameType;
 import main.ast.types.list.ListType;
@@ -21,7 +22,9 @@ import main.ast.types.single.BoolType;
 import main.ast.types.single.ClassType;
 import main.ast.types.single.IntType;
 import main.ast.types.single.StringType;
+import main.compileErrorException.CompileErrorException;
 import main.compileErrorException.typeErrors.*;
+import main.compilerMetrics.CompilerMetrics;
 import main.symbolTable.SymbolTable;
 import main.symbolTable.exceptions.ItemNotFoundException;
 import main.symbolTable.items.ClassSymbolTableItem;
@@ -31,7 +34,7 @@ import main.symbolTable.items.MethodSymbolTableItem;
 import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
 
-import java.util.ArrayList;
+import java.util.*;
 
 public class ExpressionTypeChecker extends Visitor<Type> {
     private final Graph<String> classHierarchy;
@@ -40,9 +43,21 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     private int typeValidationNumberOfErrors;
     private boolean seenNoneLvalue = false;
     private boolean isInMethodCallStmt = false;
+    //refineType result of each declared type instance, its errors are thrown away anyway
+    private final Map<Type, Type> refinedTypes = new IdentityHashMap<>();
+    private static final int SUBTYPE_CACHE_SIZE = 4096;
+    //isFirstSubTypeOfSecond results of canonical type pairs, the least recently used pair is dropped when it is full
+    private final Map<List<Type>, Boolean> subtypeCache = new LinkedHashMap<List<Type>, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Type>, Boolean> eldest) {
+            return this.size() > SUBTYPE_CACHE_SIZE;
+        }
+    };
+    private final CompilerMetrics metrics;
 
-    public ExpressionTypeChecker(Graph<String> classHierarchy) {
+    public ExpressionTypeChecker(Graph<String> classHierarchy, CompilerMetrics metrics) {
         this.classHierarchy = classHierarchy;
+        this.metrics = metrics;
     }
 
     public void setCurrentClass(ClassDeclaration currentClass) {
@@ -68,10 +83,27 @@ public class ExpressionTypeChecker extends Visitor<Type> {
     }
 
     public boolean isFirstSubTypeOfSecond(Type first, Type second) {
-        if(first instanceof NoType)
+        if(first == second || first instanceof NoType)
+            return true;
+        if(!(first instanceof ClassType || first instanceof FptrType || first instanceof ListType))
+            return this.computeIsFirstSubTypeOfSecond(first, second);
+        List<Type> pair = Arrays.asList(TypeFactory.canonical(first), TypeFactory.canonical(second));
+        Boolean isSubType = subtypeCache.get(pair);
+        if(isSubType != null) {
+            metrics.increment("subtypeCache.hits");
+            return isSubType;
+        }
+        metrics.increment("subtypeCache.misses");
+        isSubType = this.computeIsFirstSubTypeOfSecond(pair.get(0), pair.get(1));
+        subtypeCache.put(pair, isSubType);
+        return isSubType;
+    }
+
+    private boolean computeIsFirstSubTypeOfSecond(Type first, Type second) {
+        if(first == second || first instanceof NoType)
             return true;
         else if(first instanceof IntType || first instanceof BoolType || first instanceof StringType)
-            return first.toString().equals(second.toString());
+            return first.getClass() == second.getClass();
         else if(first instanceof NullType)
             return second instanceof NullType || second instanceof FptrType || second instanceof ClassType;
         else if(first instanceof ClassType) {
@@ -93,12 +125,15 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         else if(first instanceof ListType) {
             if(!(second instanceof ListType))
                 return false;
-            ArrayList<ListNameType> firstElements = ((ListType)first).getElementsTypes();
-            ArrayList<ListNameType> secondElements = ((ListType)second).getElementsTypes();
-            if(firstElements.size() != secondElements.size())
+            ListType firstList = (ListType) first;
+            ListType secondList = (ListType) second;
+            if(firstList.getSize() != secondList.getSize())
                 return false;
-            for(int i = 0; i < firstElements.size(); i++) {
-                if (!isFirstSubTypeOfSecond(firstElements.get(i).getType(), secondElements.get(i).getType()))
+            if(firstList.isRepeated() && secondList.isRepeated())
+                return firstList.getSize() == 0 ||
+                        isFirstSubTypeOfSecond(firstList.getElementType(0).getType(), secondList.getElementType(0).getType());
+            for(int i = 0; i < firstList.getSize(); i++) {
+                if (!isFirstSubTypeOfSecond(firstList.getElementType(i).getType(), secondList.getElementType(i).getType()))
                     return false;
             }
             return true;
@@ -106,42 +141,52 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         return false;
     }
 
+    //declared types come back as their canonical instance, or NoType when they are invalid
     public Type refineType(Type type) {
-        typeValidationNumberOfErrors = 0;
-        this.checkTypeValidation(type, new NullValue());
-        if(typeValidationNumberOfErrors > 0)
-            return new NoType();
-        return type;
+        Type refined = refinedTypes.get(type);
+        if(refined == null) {
+            typeValidationNumberOfErrors = 0;
+            //only counts the errors, the declaration of the type reports them where it is checked
+            this.checkTypeValidation(type, new NullValue() {
+                @Override
+                public void addError(CompileErrorException e) { }
+            });
+            refined = typeValidationNumberOfErrors == 0 ? TypeFactory.canonical(type) : TypeFactory.noType();
+            refinedTypes.put(type, refined);
+        }
+        return refined;
     }
 
     public void checkTypeValidation(Type type, Node node) {
         if(!(type instanceof ClassType || type instanceof FptrType || type instanceof ListType))
             return;
         if(type instanceof ListType) {
-            ArrayList<ListNameType> types = ((ListType) type).getElementsTypes();
-            if(types.size() == 0) {
+            if(((ListType) type).getSize() == 0) {
                 CannotHaveEmptyList exception = new CannotHaveEmptyList(node.getLine());
                 node.addError(exception);
                 typeValidationNumberOfErrors += 1;
                 return;
             }
-            boolean flag = false;
-            for(int i = 0; i < types.size()-1; i++) {
-                for(int j = i+1; j < types.size(); j++) {
-                    String first = types.get(i).getName().getName();
-                    String second = types.get(j).getName().getName();
-                    if(first.equals("") || second.equals(""))
-                        continue;
-                    if(first.equals(second)) {
-                        DuplicateListId exception = new DuplicateListId(node.getLine());
-                        node.addError(exception);
-                        typeValidationNumberOfErrors += 1;
-                        flag = true;
-                        break;
-                    }
+            if(((ListType) type).isRepeated()) {
+                ListNameType repeatedType = ((ListType) type).getElementType(0);
+                if(((ListType) type).getSize() > 1 && !repeatedType.getName().getName().equals("")) {
+                    DuplicateListId exception = new DuplicateListId(node.getLine());
+                    node.addError(exception);
+                    typeValidationNumberOfErrors += 1;
                 }
-                if(flag)
+                this.checkTypeValidation(repeatedType.getType(), node);
+                return;
+            }
+            ArrayList<ListNameType> types = ((ListType) type).getElementsTypes();
+            Set<String> seenNames = new HashSet<>();
+            for(ListNameType listNameType : types) {
+                String name = listNameType.getName().getName();
+                if(!name.equals("") && !seenNames.add(name)) {
+                    DuplicateListId exception = new DuplicateListId(node.getLine());
+                    node.addError(exception);
+                    typeValidationNumberOfErrors += 1;
                     break;
+                }
             }
             for(ListNameType listNameType : types)
                 this.checkTypeValidation(listNameType.getType(), node);
@@ -163,6 +208,15 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         }
     }
 
+    public boolean areAllElementsSameType(ListType listType) {
+        if(listType.isRepeated())
+            return true;
+        ArrayList<Type> types = new ArrayList<>();
+        for(ListNameType listNameType : listType.getElementsTypes())
+            types.add(listNameType.getType());
+        return this.areAllSameType(types);
+    }
+
     public boolean areAllSameType(ArrayList<Type> types) {
         if(types.size() == 0)
             return true;
@@ -197,75 +251,74 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         Type secondType = binaryExpression.getSecondOperand().accept(this);
         if((operator == BinaryOperator.eq) || (operator == BinaryOperator.neq)) {
             if(firstType instanceof NoType && secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             else if((firstType instanceof NoType && secondType instanceof ListType) ||
                     (secondType instanceof NoType && firstType instanceof ListType)) {
                 UnsupportedOperandType exception = new UnsupportedOperandType(binaryExpression.getLine(), operator.name());
                 binaryExpression.addError(exception);
-                return new NoType();
+                return TypeFactory.noType();
             }
             else if(firstType instanceof NoType || secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if(firstType instanceof IntType || firstType instanceof BoolType || firstType instanceof StringType)
-                if(firstType.toString().equals(secondType.toString()))
-                    return new BoolType();
+                if(firstType == secondType)
+                    return TypeFactory.boolType();
             if((firstType instanceof ClassType && secondType instanceof NullType) ||
                     (firstType instanceof NullType && secondType instanceof ClassType) ||
-                    (firstType instanceof ClassType && secondType instanceof ClassType &&
-                            ((ClassType)firstType).getClassName().getName().equals(((ClassType)secondType).getClassName().getName()))) {
-                return new BoolType();
+                    (firstType instanceof ClassType && firstType == secondType)) {
+                return TypeFactory.boolType();
             }
             if((firstType instanceof FptrType && secondType instanceof NullType) ||
                     (firstType instanceof NullType && secondType instanceof FptrType) ||
                     (firstType instanceof FptrType && secondType instanceof FptrType)) {
-                return new BoolType();
+                return TypeFactory.boolType();
             }
             if(firstType instanceof NullType && secondType instanceof NullType)
-                return new BoolType();
+                return TypeFactory.boolType();
         }
         if((operator == BinaryOperator.gt) || (operator == BinaryOperator.lt)) {
             if(firstType instanceof NoType && secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             else if((firstType instanceof NoType && !(secondType instanceof IntType)) ||
                     (secondType instanceof NoType && !(firstType instanceof IntType))) {
                 UnsupportedOperandType exception = new UnsupportedOperandType(binaryExpression.getLine(), operator.name());
                 binaryExpression.addError(exception);
-                return new NoType();
+                return TypeFactory.noType();
             }
             else if(firstType instanceof NoType || secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if((firstType instanceof IntType) && (secondType instanceof IntType))
-                return new BoolType();
+                return TypeFactory.boolType();
         }
         if((operator == BinaryOperator.add) || (operator == BinaryOperator.sub) ||
                 (operator == BinaryOperator.mult) || (operator == BinaryOperator.div) || (operator == BinaryOperator.mod)) {
             if(firstType instanceof NoType && secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             else if((firstType instanceof NoType && !(secondType instanceof IntType)) ||
                     (secondType instanceof NoType && !(firstType instanceof IntType))) {
                 UnsupportedOperandType exception = new UnsupportedOperandType(binaryExpression.getLine(), operator.name());
                 binaryExpression.addError(exception);
-                return new NoType();
+                return TypeFactory.noType();
             }
             else if(firstType instanceof NoType || secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if((firstType instanceof IntType) && (secondType instanceof IntType))
-                return new IntType();
+                return TypeFactory.intType();
         }
 
         if((operator == BinaryOperator.or) || (operator == BinaryOperator.and)) {
             if(firstType instanceof NoType && secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             else if((firstType instanceof NoType && !(secondType instanceof BoolType)) ||
                     (secondType instanceof NoType && !(firstType instanceof BoolType))) {
                 UnsupportedOperandType exception = new UnsupportedOperandType(binaryExpression.getLine(), operator.name());
                 binaryExpression.addError(exception);
-                return new NoType();
+                return TypeFactory.noType();
             }
             else if(firstType instanceof NoType || secondType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if((firstType instanceof BoolType) && (secondType instanceof BoolType))
-                return new BoolType();
+                return TypeFactory.boolType();
         }
         if(operator == BinaryOperator.assign) {
             boolean isFirstLvalue = this.isLvalue(binaryExpression.getFirstOperand());
@@ -274,21 +327,21 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 binaryExpression.addError(exception);
             }
             if(firstType instanceof NoType || secondType instanceof NoType) {
-                return new NoType();
+                return TypeFactory.noType();
             }
             boolean isSubtype = this.isFirstSubTypeOfSecond(secondType, firstType);
             if(isSubtype) {
                 if(isFirstLvalue)
                     return secondType;
-                return new NoType();
+                return TypeFactory.noType();
             }
             UnsupportedOperandType exception = new UnsupportedOperandType(binaryExpression.getLine(), operator.name());
             binaryExpression.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
         UnsupportedOperandType exception = new UnsupportedOperandType(binaryExpression.getLine(), operator.name());
         binaryExpression.addError(exception);
-        return new NoType();
+        return TypeFactory.noType();
     }
 
     @Override
@@ -298,21 +351,21 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         UnaryOperator operator = unaryExpression.getOperator();
         if(operator == UnaryOperator.not) {
             if(operandType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if(operandType instanceof BoolType)
                 return operandType;
             UnsupportedOperandType exception = new UnsupportedOperandType(unaryExpression.getLine(), operator.name());
             unaryExpression.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
         else if(operator == UnaryOperator.minus) {
             if(operandType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if(operandType instanceof IntType)
                 return operandType;
             UnsupportedOperandType exception = new UnsupportedOperandType(unaryExpression.getLine(), operator.name());
             unaryExpression.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
         else {
             boolean isOperandLvalue = this.isLvalue(unaryExpression.getOperand());
@@ -321,15 +374,15 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 unaryExpression.addError(exception);
             }
             if(operandType instanceof NoType)
-                return new NoType();
+                return TypeFactory.noType();
             if(operandType instanceof IntType) {
                 if(isOperandLvalue)
                     return operandType;
-                return new NoType();
+                return TypeFactory.noType();
             }
             UnsupportedOperandType exception = new UnsupportedOperandType(unaryExpression.getLine(), operator.name());
             unaryExpression.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
     }
 
@@ -341,14 +394,14 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             this.seenNoneLvalue = prevSeenNoneLvalue;
         String memberName = objectOrListMemberAccess.getMemberName().getName();
         if(instanceType instanceof NoType)
-            return new NoType();
+            return TypeFactory.noType();
         else if(instanceType instanceof ClassType) {
             String className = ((ClassType) instanceType).getClassName().getName();
             SymbolTable classSymbolTable;
             try {
                 classSymbolTable = ((ClassSymbolTableItem) SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + className, true)).getClassSymbolTable();
             } catch (ItemNotFoundException classNotFound) {
-                return new NoType();
+                return TypeFactory.noType();
             }
             try {
                 FieldSymbolTableItem fieldSymbolTableItem = (FieldSymbolTableItem) classSymbolTable.getItem(FieldSymbolTableItem.START_KEY + memberName, true);
@@ -357,32 +410,34 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 try {
                     MethodSymbolTableItem methodSymbolTableItem = (MethodSymbolTableItem) classSymbolTable.getItem(MethodSymbolTableItem.START_KEY + memberName, true);
                     this.seenNoneLvalue = true;
-                    return new FptrType(methodSymbolTableItem.getArgTypes(), methodSymbolTableItem.getReturnType());
+                    return TypeFactory.fptrType(methodSymbolTableItem.getArgTypes(), methodSymbolTableItem.getReturnType());
                 } catch (ItemNotFoundException memberNotFound) {
                     if(memberName.equals(className)) {
                         this.seenNoneLvalue = true;
-                        return new FptrType(new ArrayList<>(), new NullType());
+                        return TypeFactory.fptrType(new ArrayList<>(), TypeFactory.nullType());
                     }
                     MemberNotAvailableInClass exception = new MemberNotAvailableInClass(objectOrListMemberAccess.getLine(), memberName, className);
                     objectOrListMemberAccess.addError(exception);
-                    return new NoType();
+                    return TypeFactory.noType();
                 }
             }
         }
         else if(instanceType instanceof ListType) {
-            ArrayList<ListNameType> elementsTypes = ((ListType) instanceType).getElementsTypes();
-            for(ListNameType elementType : elementsTypes) {
+            ListType listType = (ListType) instanceType;
+            int searchedElements = listType.isRepeated() ? Math.min(1, listType.getSize()) : listType.getSize();
+            for(int i = 0; i < searchedElements; i++) {
+                ListNameType elementType = listType.getElementType(i);
                 if(elementType.getName().getName().equals(memberName))
                     return this.refineType(elementType.getType());
             }
             ListMemberNotFound exception = new ListMemberNotFound(objectOrListMemberAccess.getLine(), memberName);
             objectOrListMemberAccess.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
         else {
             MemberAccessOnNoneObjOrListType exception = new MemberAccessOnNoneObjOrListType(objectOrListMemberAccess.getLine());
             objectOrListMemberAccess.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
     }
 
@@ -398,7 +453,7 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         } catch (ItemNotFoundException e) {
             VarNotDeclared exception = new VarNotDeclared(identifier.getLine(), identifier.getName());
             identifier.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
     }
 
@@ -415,30 +470,28 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             indexErrored = true;
         }
         if(instanceType instanceof ListType) {
-            ArrayList<Type> types = new ArrayList<>();
-            for(ListNameType listNameType : ((ListType)instanceType).getElementsTypes())
-                types.add(listNameType.getType());
-            boolean areAllSame = this.areAllSameType(types);
+            ListType listType = (ListType) instanceType;
+            boolean areAllSame = this.areAllElementsSameType(listType);
             if(!(listAccessByIndex.getIndex() instanceof IntValue) && !areAllSame) {
                 CantUseExprAsIndexOfMultiTypeList exception = new CantUseExprAsIndexOfMultiTypeList(listAccessByIndex.getLine());
                 listAccessByIndex.addError(exception);
-                return new NoType();
+                return TypeFactory.noType();
             }
             if(indexErrored)
-                return new NoType();
-            if((listAccessByIndex.getIndex() instanceof IntValue) && !areAllSame && (((IntValue)listAccessByIndex.getIndex()).getConstant() < ((ListType)instanceType).getElementsTypes().size())) {
+                return TypeFactory.noType();
+            if((listAccessByIndex.getIndex() instanceof IntValue) && !areAllSame && (((IntValue)listAccessByIndex.getIndex()).getConstant() < listType.getSize())) {
                 int index = ((IntValue)listAccessByIndex.getIndex()).getConstant();
-                return this.refineType(((ListType) instanceType).getElementsTypes().get(index).getType());
+                return this.refineType(listType.getElementType(index).getType());
             }
             else {
-                return this.refineType(((ListType) instanceType).getElementsTypes().get(0).getType());
+                return this.refineType(listType.getElementType(0).getType());
             }
         }
         else if(!(instanceType instanceof NoType)) {
             ListAccessByIndexOnNoneList exception = new ListAccessByIndexOnNoneList(listAccessByIndex.getLine());
             listAccessByIndex.addError(exception);
         }
-        return new NoType();
+        return TypeFactory.noType();
     }
 
     @Override
@@ -455,10 +508,10 @@ public class ExpressionTypeChecker extends Visitor<Type> {
         if(!(instanceType instanceof FptrType || instanceType instanceof NoType)) {
             CallOnNoneFptrType exception = new CallOnNoneFptrType(methodCall.getLine());
             methodCall.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
         else if(instanceType instanceof NoType) {
-            return new NoType();
+            return TypeFactory.noType();
         }
         else {
             ArrayList<Type> actualArgsTypes = ((FptrType) instanceType).getArgumentsTypes();
@@ -471,13 +524,13 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             }
             if(this.isFirstSubTypeOfSecondMultiple(argsTypes, actualArgsTypes)) {
                 if(hasError)
-                    return new NoType();
+                    return TypeFactory.noType();
                 return this.refineType(returnType);
             }
             else {
                 MethodCallNotMatchDefinition exception = new MethodCallNotMatchDefinition(methodCall.getLine());
                 methodCall.addError(exception);
-                return new NoType();
+                return TypeFactory.noType();
             }
         }
     }
@@ -495,35 +548,35 @@ public class ExpressionTypeChecker extends Visitor<Type> {
                 MethodSymbolTableItem methodSymbolTableItem = (MethodSymbolTableItem) classSymbolTableItem.getClassSymbolTable().getItem(MethodSymbolTableItem.START_KEY + className, true);
                 ArrayList<Type> constructorActualTypes = methodSymbolTableItem.getArgTypes();
                 if(this.isFirstSubTypeOfSecondMultiple(newInstanceTypes, constructorActualTypes)) {
-                    return newClassInstance.getClassType();
+                    return TypeFactory.canonical(newClassInstance.getClassType());
                 }
                 else {
                     ConstructorArgsNotMatchDefinition exception = new ConstructorArgsNotMatchDefinition(newClassInstance);
                     newClassInstance.addError(exception);
-                    return new NoType();
+                    return TypeFactory.noType();
                 }
             } catch (ItemNotFoundException ignored) {
                 if(newInstanceTypes.size() != 0) {
                     ConstructorArgsNotMatchDefinition exception = new ConstructorArgsNotMatchDefinition(newClassInstance);
                     newClassInstance.addError(exception);
-                    return new NoType();
+                    return TypeFactory.noType();
                 }
                 else {
-                    return newClassInstance.getClassType();
+                    return TypeFactory.canonical(newClassInstance.getClassType());
                 }
             }
         }
         else {
             ClassNotDeclared exception = new ClassNotDeclared(newClassInstance.getLine(), className);
             newClassInstance.addError(exception);
-            return new NoType();
+            return TypeFactory.noType();
         }
     }
 
     @Override
     public Type visit(ThisClass thisClass) {
         this.seenNoneLvalue = true;
-        return new ClassType(currentClass.getClassName());
+        return TypeFactory.classType(currentClass.getClassName().getName());
     }
 
     @Override
@@ -534,30 +587,30 @@ public class ExpressionTypeChecker extends Visitor<Type> {
             Type elementType = element.accept(this);
             types.add(new ListNameType(elementType));
         }
-        return new ListType(types);
+        return TypeFactory.listType(types);
     }
 
     @Override
     public Type visit(NullValue nullValue) {
         this.seenNoneLvalue = true;
-        return new NullType();
+        return TypeFactory.nullType();
     }
 
     @Override
     public Type visit(IntValue intValue) {
         this.seenNoneLvalue = true;
-        return new IntType();
+        return TypeFactory.intType();
     }
 
     @Override
     public Type visit(BoolValue boolValue) {
         this.seenNoneLvalue = true;
-        return new BoolType();
+        return TypeFactory.boolType();
     }
 
     @Override
     public Type visit(StringValue stringValue) {
         this.seenNoneLvalue = true;
-        return new StringType();
+        return TypeFactory.stringType();
     }
 }
@@ -0,0 +1,45 @@
+package main.visitor.typeChecker;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.nodes.declaration.classDec.ClassDeclaration;
+import main.compilerDiagnostics.Diagnostics;
+import main.compilerMetrics.CompilerMetrics;
+import main.symbolTable.utils.graph.Graph;
+import main.visitor.nameAnalyzer.NameChecker;
+
+//name checks and type checks each class in the same walk.
+//type errors go to their own sink and, like in the separate passes, are only worth printing when there was no name error
+public class FusedChecker extends TypeChecker {
+    private final NameChecker nameChecker;
+    private final Diagnostics nameDiagnostics;
+    private final Diagnostics typeDiagnostics;
+    private Program program;
+
+    public FusedChecker(Graph<String> classHierarchy, CompilerMetrics metrics,
+                        Diagnostics nameDiagnostics, Diagnostics typeDiagnostics) {
+        super(classHierarchy, metrics);
+        this.nameChecker = new NameChecker(classHierarchy);
+        this.nameDiagnostics = nameDiagnostics;
+        this.typeDiagnostics = typeDiagnostics;
+    }
+
+    @Override
+    public RetConBrk visit(Program program) {
+        this.program = program;
+        Node.diagnostics = typeDiagnostics;
+        super.visit(program);
+        Node.diagnostics = nameDiagnostics;
+        return null;
+    }
+
+    @Override
+    public RetConBrk visit(ClassDeclaration classDeclaration) {
+        Node.diagnostics = nameDiagnostics;
+        nameChecker.checkClass(program, classDeclaration);
+        Node.diagnostics = typeDiagnostics;
+        if(!nameDiagnostics.hasErrors())
+            super.visit(classDeclaration);
+        return null;
+    }
+}
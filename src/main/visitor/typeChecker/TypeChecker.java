@@ -16,18 +16,19 @@ import main.ast.nodes.statement.loop.ForeachStmt;
 import main.ast.types.NoType;
 import main.ast.types.NullType;
 import main.ast.types.Type;
+import main.ast.types.TypeFactory;
 import main.ast.types.functionPointer.FptrType;
-import main.ast.types.list.ListNameType;
 import main.ast.types.list.ListType;
 import main.ast.types.single.BoolType;
-import main.ast.types.single.ClassType;
 import main.ast.types.single.IntType;
 import main.ast.types.single.StringType;
 import main.compileErrorException.typeErrors.*;
+import main.compilerMetrics.CompilerMetrics;
 import main.symbolTable.utils.graph.Graph;
 import main.visitor.Visitor;
 
-import java.util.ArrayList;
+import java.util.Set;
+
 
 public class TypeChecker extends Visitor<RetConBrk> {
     private final Graph<String> classHierarchy;
@@ -35,10 +36,16 @@ public class TypeChecker extends Visitor<RetConBrk> {
     private ClassDeclaration currentClass;
     private MethodDeclaration currentMethod;
     private boolean isInFor = false;
+    private Set<String> classesToCheck = null;
 
-    public TypeChecker(Graph<String> classHierarchy) {
+    public TypeChecker(Graph<String> classHierarchy, CompilerMetrics metrics) {
         this.classHierarchy = classHierarchy;
-        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy);
+        this.expressionTypeChecker = new ExpressionTypeChecker(classHierarchy, metrics);
+    }
+
+    //classes left out are assumed to be unchanged since they were last checked, null checks all of them
+    public void setClassesToCheck(Set<String> classesToCheck) {
+        this.classesToCheck = classesToCheck;
     }
 
     @Override
@@ -60,8 +67,10 @@ public class TypeChecker extends Visitor<RetConBrk> {
 
     @Override
     public RetConBrk visit(ClassDeclaration classDeclaration) {
+        if(classesToCheck != null && !classesToCheck.contains(classDeclaration.getClassName().getName()))
+            return null;
         if(classDeclaration.getParentClassName() != null) {
-            this.expressionTypeChecker.checkTypeValidation(new ClassType(classDeclaration.getParentClassName()), classDeclaration);
+            this.expressionTypeChecker.checkTypeValidation(TypeFactory.classType(classDeclaration.getParentClassName().getName()), classDeclaration);
             if(classDeclaration.getClassName().getName().equals("Main")) {
                 MainClassCantExtend exception = new MainClassCantExtend(classDeclaration.getLine());
                 classDeclaration.addError(exception);
@@ -260,14 +269,12 @@ public class TypeChecker extends Visitor<RetConBrk> {
             foreachStmt.addError(exception);
         }
         else if(!(listType instanceof NoType)) {
-            ArrayList<Type> types = new ArrayList<>();
-            for(ListNameType listNameType : ((ListType) listType).getElementsTypes())
-                types.add(listNameType.getType());
-            if(!expressionTypeChecker.areAllSameType(types)) {
+            if(!expressionTypeChecker.areAllElementsSameType((ListType) listType)) {
                 ForeachListElementsNotSameType exception = new ForeachListElementsNotSameType(foreachStmt.getLine());
                 foreachStmt.addError(exception);
             }
-            if((types.size() > 0) && !expressionTypeChecker.isSameType(varType, types.get(0))) {
+            if((((ListType) listType).getSize() > 0) &&
+                    !expressionTypeChecker.isSameType(varType, ((ListType) listType).getElementType(0).getType())) {
                 ForeachVarNotMatchList exception = new ForeachVarNotMatchList(foreachStmt);
                 foreachStmt.addError(exception);
             }
@@ -0,0 +1,137 @@
+package test;
+
+import main.SophiaCompiler;
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.types.TypeFactory;
+import main.compilerDiagnostics.Diagnostics;
+import main.compilerMetrics.CompilerMetrics;
+import main.incremental.AstCache;
+import main.incremental.AstReader;
+import main.incremental.AstWriter;
+import main.parsing.ProgramParser;
+import main.symbolTable.SymbolTable;
+import main.symbolTable.exceptions.ItemNotFoundException;
+import main.symbolTable.items.ClassSymbolTableItem;
+import main.visitor.nameAnalyzer.NameAnalyzer;
+import org.antlr.v4.runtime.CharStreams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+//writes the samples with AstWriter and reads them back with AstReader, then damages a cached entry
+//at every byte and checks that loading it either still works or misses without touching the symbol tables
+//and deletes the entry, so the compiler parses the program again. exits with 1 if a check fails
+public class AstCacheTest {
+    private static final String[] SAMPLES = {"sample1", "sample2", "hardSample"};
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        for(String sample : SAMPLES)
+            roundTrip(sample);
+        corruptEntries("hardSample");
+        if(failures > 0) {
+            System.out.println(failures + " ast cache checks failed");
+            System.exit(1);
+        }
+        System.out.println("all ast cache checks passed");
+    }
+
+    private static void fail(String message) {
+        System.out.println(message);
+        failures++;
+    }
+
+    private static String source(String sample) throws IOException {
+        return Files.readString(Paths.get("samples/" + sample + ".sop"));
+    }
+
+    //what the compiler stores: a parsed program with its names collected
+    private static Program collect(String sourceText) {
+        Node.diagnostics = new Diagnostics();
+        TypeFactory.reset();
+        Program program = new ProgramParser(new CompilerMetrics()).parse(CharStreams.fromString(sourceText));
+        new NameAnalyzer(program).collect();
+        return program;
+    }
+
+    private static boolean hasClass(String className) {
+        try {
+            SymbolTable.root.getItem(ClassSymbolTableItem.START_KEY + className, true);
+            return true;
+        } catch (ItemNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static void roundTrip(String sample) throws IOException {
+        Program program = collect(source(sample));
+        String printed = OptimizerRegressionTest.print(program);
+        byte[] entry = new AstWriter().write(SophiaCompiler.VERSION, program);
+        SymbolTable.root = null;
+        Program read = new AstReader(ByteBuffer.wrap(entry)).read(SophiaCompiler.VERSION);
+        if(read == null)
+            fail(sample + ": the entry was not read back");
+        else if(!printed.equals(OptimizerRegressionTest.print(read)))
+            fail(sample + ": the program read back differs from the one written");
+        else if(SymbolTable.root == null || !hasClass("Main"))
+            fail(sample + ": the symbol tables were not read back");
+    }
+
+    private static void corruptEntries(String sample) throws IOException {
+        String sourceText = source(sample);
+        Path directory = Files.createTempDirectory("astCache");
+        try {
+            AstCache astCache = new AstCache(directory.toString(), SophiaCompiler.VERSION);
+            astCache.store(sourceText, collect(sourceText));
+            Path entryPath;
+            try(Stream<Path> entries = Files.list(directory)) {
+                entryPath = entries.findFirst().orElseThrow();
+            }
+            byte[] entry = Files.readAllBytes(entryPath);
+            for(int i = 0; i < entry.length; i++) {
+                byte[] damaged = entry.clone();
+                damaged[i] = (byte) 0xff;
+                loadDamaged(astCache, sourceText, entryPath, damaged, "byte " + i + " set");
+                loadDamaged(astCache, sourceText, entryPath, Arrays.copyOf(entry, i), "cut at " + i);
+            }
+            //a miss falls back to parsing, which stores a readable entry again
+            Files.write(entryPath, Arrays.copyOf(entry, entry.length / 2));
+            if(astCache.load(sourceText) != null)
+                fail(sample + ": a cut entry was loaded");
+            astCache.store(sourceText, collect(sourceText));
+            if(astCache.load(sourceText) == null)
+                fail(sample + ": the entry stored after parsing again was not loaded");
+        } finally {
+            try(Stream<Path> files = Files.walk(directory)) {
+                for(Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    private static void loadDamaged(AstCache astCache, String sourceText, Path entryPath, byte[] damaged, String damage) throws IOException {
+        Files.write(entryPath, damaged);
+        SymbolTable before = new SymbolTable();
+        SymbolTable.root = before;
+        Program program;
+        try {
+            program = astCache.load(sourceText);
+        } catch (RuntimeException e) {
+            fail(damage + ": loading threw " + e);
+            return;
+        }
+        if(program != null)
+            return;
+        if(SymbolTable.root != before)
+            fail(damage + ": a failed load replaced the symbol tables");
+        if(Files.exists(entryPath))
+            fail(damage + ": a corrupt entry was kept");
+    }
+}
@@ -0,0 +1,100 @@
+package test;
+
+import main.ast.nodes.Node;
+import main.ast.nodes.Program;
+import main.ast.types.TypeFactory;
+import main.compilerDiagnostics.Diagnostics;
+import main.compilerMetrics.CompilerMetrics;
+import main.parsing.MappedCharStream;
+import main.parsing.ProgramParser;
+import main.visitor.nameAnalyzer.NameAnalyzer;
+import main.visitor.optimizer.ClassHierarchyAnalysis;
+import main.visitor.optimizer.ConstantFolder;
+import main.visitor.optimizer.DeadCodeEliminator;
+import main.visitor.optimizer.Inliner;
+import main.visitor.optimizer.LoopInvariantHoister;
+import main.visitor.typeChecker.TypeChecker;
+import main.visitor.utils.ASTTreePrinter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+
+//runs the programs of samples/regression through the optimizer and checks that every expression
+//that makes them fail at runtime is still there afterwards, exits with 1 if one of them is gone
+public class OptimizerRegressionTest {
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        //a / b with b == 0 must survive folding of "&& false" and "|| true"
+        expect("foldFailingOperand", "Line:8:BinaryExpression_div", "Line:10:BinaryExpression_div");
+        //stores to a never read local are dropped, but not when computing the value fails:
+        //a division by zero, an index out of range and a field of a null object
+        expect("deadStoreFailing", "Line:14:BinaryExpression_div", "Line:15:ListAccessByIndex",
+                "Line:16:ObjectOrListMemberAccess_x");
+        //calls through a null box are inlined with a read of its field in a statement before the counter is called
+        expectInOrder("nullReceiver", "Line:26:ObjectOrListMemberAccess_value", "Line:26:AssignmentStmt", "Line:26:MethodCall");
+        expectInOrder("nullReceiver", "Line:27:ObjectOrListMemberAccess_value", "Line:27:AssignmentStmt", "Line:27:MethodCall");
+        if(failures > 0) {
+            System.out.println(failures + " regression checks failed");
+            System.exit(1);
+        }
+        System.out.println("all regression checks passed");
+    }
+
+    private static void expect(String name, String... nodes) throws IOException {
+        String optimized = optimize("samples/regression/" + name + ".sop");
+        for(String node : nodes) {
+            if(!optimized.lines().anyMatch(node::equals)) {
+                System.out.println(name + ": " + node + " was optimized away");
+                failures++;
+            }
+        }
+    }
+
+    private static void expectInOrder(String name, String... nodes) throws IOException {
+        String optimized = optimize("samples/regression/" + name + ".sop");
+        int found = 0;
+        for(String line : optimized.lines().toArray(String[]::new))
+            if(found < nodes.length && line.equals(nodes[found]))
+                found++;
+        if(found < nodes.length) {
+            System.out.println(name + ": " + nodes[found] + " is missing or out of order");
+            failures++;
+        }
+    }
+
+    private static String optimize(String path) throws IOException {
+        CompilerMetrics metrics = new CompilerMetrics();
+        Diagnostics diagnostics = new Diagnostics();
+        Node.diagnostics = diagnostics;
+        TypeFactory.reset();
+        ProgramParser programParser = new ProgramParser(metrics);
+        Program program = programParser.parse(MappedCharStream.fromPath(Paths.get(path)));
+        NameAnalyzer nameAnalyzer = new NameAnalyzer(program);
+        nameAnalyzer.collect();
+        nameAnalyzer.check();
+        program.accept(new TypeChecker(nameAnalyzer.getClassHierarchy(), metrics));
+        if(programParser.getNumberOfSyntaxErrors() > 0 || diagnostics.flush(System.out) > 0)
+            throw new IllegalStateException(path + " does not compile");
+        ClassHierarchyAnalysis hierarchyAnalysis = new ClassHierarchyAnalysis(program, nameAnalyzer.getClassHierarchy());
+        program.accept(new Inliner(nameAnalyzer.getClassHierarchy(), hierarchyAnalysis, metrics));
+        program.accept(new ConstantFolder(metrics));
+        program.accept(new DeadCodeEliminator(metrics));
+        program.accept(new LoopInvariantHoister(nameAnalyzer.getClassHierarchy(), hierarchyAnalysis, metrics));
+        return print(program);
+    }
+
+    static String print(Program program) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            program.accept(new ASTTreePrinter());
+        } finally {
+            System.setOut(out);
+        }
+        return printed.toString();
+    }
+}
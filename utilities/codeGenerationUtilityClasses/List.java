@@ -1,16 +1,22 @@
 import java.util.ArrayList;
 
 public class List {
-    public ArrayList<Object> elements;
+    public Object[] elements;
+
+    public List(int size) {
+        this.elements = new Object[size];
+    }
 
     public List(ArrayList<Object> newElements) {
-        this.elements = new ArrayList<>();
-        for(Object newElement : newElements)
-            this.elements.add(getNewObject(newElement));
+        this.elements = new Object[newElements.size()];
+        for(int i = 0; i < this.elements.length; i++)
+            this.elements[i] = getNewObject(newElements.get(i));
     }
 
     public List(List that) {
-        this(that.elements);
+        this.elements = new Object[that.elements.length];
+        for(int i = 0; i < this.elements.length; i++)
+            this.elements[i] = getNewObject(that.elements[i]);
     }
 
     private Object getNewObject(Object o) {
@@ -21,11 +27,11 @@ public class List {
     }
 
     public Object getElement(int index) {
-        return this.elements.get(index);
+        return this.elements[index];
     }
 
     public void setElement(int index, Object o) {
-        this.elements.set(index, getNewObject(o));
+        this.elements[index] = getNewObject(o);
     }
 
 }
@@ -0,0 +1,39 @@
+public class Printer extends Thread {
+    private static final int CAPACITY = 8192;
+    private static final StringBuilder buffer = new StringBuilder(2 * CAPACITY);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Printer());
+    }
+
+    public static void print(String s) {
+        buffer.append(s);
+        flushIfFull();
+    }
+
+    public static void print(int i) {
+        buffer.append(i);
+        flushIfFull();
+    }
+
+    public static void print(boolean b) {
+        buffer.append(b);
+        flushIfFull();
+    }
+
+    private static void flushIfFull() {
+        if(buffer.length() >= CAPACITY)
+            flush();
+    }
+
+    public static void flush() {
+        System.out.print(buffer.toString());
+        System.out.flush();
+        buffer.setLength(0);
+    }
+
+    public void run() {
+        flush();
+    }
+
+}
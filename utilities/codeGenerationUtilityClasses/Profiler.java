@@ -0,0 +1,73 @@
+import java.util.ArrayList;
+
+public class Profiler extends Thread {
+    private static final ArrayList<String> methods = new ArrayList<>();
+    private static final ArrayList<long[]> threadCounters = new ArrayList<>();
+    private static final ThreadLocal<long[]> counters = new ThreadLocal<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Profiler());
+    }
+
+    public static synchronized int register(String classMethods) {
+        int first = methods.size();
+        String[] names = classMethods.split(",");
+        for(int i = 0; i < names.length; i++)
+            methods.add(names[i]);
+        return first;
+    }
+
+    public static void exit(int id, long start) {
+        long elapsed = System.nanoTime() - start;
+        long[] local = counters.get();
+        if(local == null || local.length <= 2 * id + 1)
+            local = grow();
+        local[2 * id] += 1;
+        local[2 * id + 1] += elapsed;
+    }
+
+    private static synchronized long[] grow() {
+        long[] old = counters.get();
+        long[] local = new long[2 * methods.size()];
+        if(old != null) {
+            System.arraycopy(old, 0, local, 0, old.length);
+            threadCounters.remove(old);
+        }
+        threadCounters.add(local);
+        counters.set(local);
+        return local;
+    }
+
+    public void run() {
+        report();
+    }
+
+    //holds the lock grow takes, so no thread adds its counters while they are merged
+    private static synchronized void report() {
+        int count = methods.size();
+        long[] calls = new long[count];
+        long[] nanos = new long[count];
+        for(int t = 0; t < threadCounters.size(); t++) {
+            long[] local = threadCounters.get(t);
+            for(int i = 0; 2 * i < local.length; i++) {
+                calls[i] += local[2 * i];
+                nanos[i] += local[2 * i + 1];
+            }
+        }
+        int[] order = new int[count];
+        for(int i = 0; i < count; i++) {
+            int j = i;
+            while(j > 0 && nanos[order[j - 1]] < nanos[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        System.err.println("\n---------------------------Profile---------------------------");
+        System.err.println("      calls      time ms  method");
+        for(int i = 0; i < count; i++)
+            if(calls[order[i]] > 0)
+                System.err.println(String.format("%11d %12.3f  %s", calls[order[i]], nanos[order[i]] / 1e6, methods.get(order[i])));
+    }
+
+}